@@ -0,0 +1,71 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import net.alenzen.intelHex.HexFormat;
+import net.alenzen.intelHex.IntelHexWriter;
+import net.alenzen.intelHex.WriteOptions;
+
+/**
+ * Seeded hex files shared by the benchmarks. The files are streamed to disk,
+ * so the size of the image does not depend on the available heap.
+ */
+final class BenchmarkData {
+	private static final long SEED = 0x1A7E1L;
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Writes a file with {@code size} defined data bytes in the given layout.
+	 *
+	 * @return the temporary file, deleted on exit
+	 */
+	static Path write(long size, short lineLength, Layout layout) throws IOException {
+		Path file = Files.createTempFile("intelhex-" + layout + "-" + size + "-" + lineLength, ".hex");
+		file.toFile().deleteOnExit();
+
+		Random r = new Random(SEED);
+		byte[] chunk = new byte[CHUNK_SIZE];
+		long blockLength = layout.blockLength(lineLength);
+		long blockDistance = layout.blockDistance(lineLength);
+
+		try (IntelHexWriter writer = new IntelHexWriter(
+				FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+				HexFormat.I32HEX, lineLength, new WriteOptions())) {
+			long written = 0;
+			long block = 0;
+			while (written < size) {
+				long blockStart = block * blockDistance;
+				long blockSize = Math.min(blockLength, size - written);
+				for (long offset = 0; offset < blockSize; offset += chunk.length) {
+					int length = (int) Math.min(chunk.length, blockSize - offset);
+					r.nextBytes(chunk);
+					writer.write(blockStart + offset, chunk, 0, length);
+				}
+				written += blockSize;
+				block++;
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * @return address of the last defined byte plus one
+	 */
+	static long endAddress(long size, short lineLength, Layout layout) {
+		long blockLength = layout.blockLength(lineLength);
+		if (size <= blockLength) {
+			return size;
+		}
+
+		long blocks = (size + blockLength - 1) / blockLength;
+		return (blocks - 1) * layout.blockDistance(lineLength) + (size - (blocks - 1) * blockLength);
+	}
+}
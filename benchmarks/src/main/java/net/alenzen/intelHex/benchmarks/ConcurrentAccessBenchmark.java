@@ -0,0 +1,142 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.alenzen.intelHex.ConcurrentIntelHexFile;
+import net.alenzen.intelHex.IntelHexFile;
+
+/**
+ * Contention of {@link ConcurrentIntelHexFile} compared to a fully
+ * synchronized {@link IntelHexFile}. Every group runs eight threads with a
+ * different share of writers which patch random 64 KiB regions; scale the
+ * threads with {@code -tg}.
+ */
+public class ConcurrentAccessBenchmark {
+	private static final int REGIONS = 64;
+	private static final int REGION = 0x10000;
+	private static final int READ_LENGTH = 256;
+	private static final int PATCH_LENGTH = 64;
+	private static final int ADDRESS_COUNT = 1 << 12;
+
+	public enum Locking {
+		SYNCHRONIZED, CONCURRENT
+	}
+
+	@State(Scope.Group)
+	public static class Target {
+		@Param({ "SYNCHRONIZED", "CONCURRENT" })
+		public Locking locking;
+
+		private IntelHexFile plain;
+		private ConcurrentIntelHexFile concurrent;
+
+		@Setup
+		public void setup() {
+			IntelHexFile f = IntelHexFile.create();
+			f.updateBytes(0, new byte[REGIONS * REGION]);
+			f.refreshIndex();
+			if (locking == Locking.CONCURRENT) {
+				concurrent = new ConcurrentIntelHexFile(f);
+			} else {
+				plain = f;
+			}
+		}
+
+		byte[] readBytes(long address, int numberOfBytes) {
+			if (concurrent != null) {
+				return concurrent.readBytes(address, numberOfBytes);
+			}
+			synchronized (this) {
+				return plain.readBytes(address, numberOfBytes);
+			}
+		}
+
+		void updateBytes(long address, byte[] bs) {
+			if (concurrent != null) {
+				concurrent.updateBytes(address, bs);
+				return;
+			}
+			synchronized (this) {
+				plain.updateBytes(address, bs);
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Addresses {
+		long[] addresses = new long[ADDRESS_COUNT];
+		byte[] patch = new byte[PATCH_LENGTH];
+		int next;
+
+		@Setup
+		public void setup() {
+			Random r = new Random(Thread.currentThread().getId());
+			for (int i = 0; i < ADDRESS_COUNT; i++) {
+				addresses[i] = (long) r.nextInt(REGIONS) * REGION + r.nextInt(REGION - READ_LENGTH);
+			}
+			r.nextBytes(patch);
+		}
+
+		long next() {
+			next = (next + 1) & (ADDRESS_COUNT - 1);
+			return addresses[next];
+		}
+	}
+
+	@Benchmark
+	@Group("readOnly")
+	@GroupThreads(8)
+	public byte[] readOnlyRead(Target t, Addresses a) {
+		return t.readBytes(a.next(), READ_LENGTH);
+	}
+
+	@Benchmark
+	@Group("readHeavy")
+	@GroupThreads(7)
+	public byte[] readHeavyRead(Target t, Addresses a) {
+		return t.readBytes(a.next(), READ_LENGTH);
+	}
+
+	@Benchmark
+	@Group("readHeavy")
+	@GroupThreads(1)
+	public void readHeavyWrite(Target t, Addresses a) {
+		t.updateBytes(a.next(), a.patch);
+	}
+
+	@Benchmark
+	@Group("balanced")
+	@GroupThreads(4)
+	public byte[] balancedRead(Target t, Addresses a) {
+		return t.readBytes(a.next(), READ_LENGTH);
+	}
+
+	@Benchmark
+	@Group("balanced")
+	@GroupThreads(4)
+	public void balancedWrite(Target t, Addresses a) {
+		t.updateBytes(a.next(), a.patch);
+	}
+
+	@Benchmark
+	@Group("writeHeavy")
+	@GroupThreads(1)
+	public byte[] writeHeavyRead(Target t, Addresses a) {
+		return t.readBytes(a.next(), READ_LENGTH);
+	}
+
+	@Benchmark
+	@Group("writeHeavy")
+	@GroupThreads(7)
+	public void writeHeavyWrite(Target t, Addresses a) {
+		t.updateBytes(a.next(), a.patch);
+	}
+}
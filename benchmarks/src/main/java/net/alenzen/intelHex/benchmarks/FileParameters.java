@@ -0,0 +1,21 @@
+package net.alenzen.intelHex.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Size parameters shared by the benchmark states. Images of 1 GiB need a
+ * heap of several GiB once they are parsed; restrict the sizes with
+ * {@code -p size=...} on smaller machines.
+ */
+@State(Scope.Benchmark)
+public abstract class FileParameters {
+	/** number of defined data bytes */
+	@Param({ "1048576", "67108864", "1073741824" })
+	public long size;
+
+	/** maximum number of data bytes per record */
+	@Param({ "16", "32", "255" })
+	public short lineLength;
+}
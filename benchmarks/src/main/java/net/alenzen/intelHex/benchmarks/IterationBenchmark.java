@@ -0,0 +1,48 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.alenzen.intelHex.HexLineIndex;
+import net.alenzen.intelHex.IntelHexFile;
+import net.alenzen.intelHex.InvalidFormatException;
+
+/**
+ * Iteration over all defined bytes and construction of the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class IterationBenchmark extends FileParameters {
+	@Param({ "DENSE", "GAP_HEAVY" })
+	public Layout layout;
+
+	private IntelHexFile hexFile;
+
+	@Setup
+	public void setup() throws IOException, InvalidFormatException {
+		hexFile = IntelHexFile.parse(BenchmarkData.write(size, lineLength, layout));
+	}
+
+	@Benchmark
+	public long hexFileIterator() {
+		long sum = 0;
+		for (Iterator<Entry<Long, Byte>> it = hexFile.iterator(); it.hasNext();) {
+			sum += it.next().getValue();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public HexLineIndex buildIndex() {
+		return new HexLineIndex(hexFile);
+	}
+}
@@ -0,0 +1,35 @@
+package net.alenzen.intelHex.benchmarks;
+
+/**
+ * Distribution of the defined bytes in the address space.
+ */
+public enum Layout {
+	/** one contiguous block */
+	DENSE,
+	/** blocks of 4 KiB at the start of every 16 KiB window */
+	SPARSE,
+	/** records separated by gaps of the same length */
+	GAP_HEAVY;
+
+	long blockLength(short lineLength) {
+		switch (this) {
+		case SPARSE:
+			return 0x1000;
+		case GAP_HEAVY:
+			return lineLength;
+		default:
+			return Long.MAX_VALUE;
+		}
+	}
+
+	long blockDistance(short lineLength) {
+		switch (this) {
+		case SPARSE:
+			return 0x4000;
+		case GAP_HEAVY:
+			return 2L * lineLength;
+		default:
+			return Long.MAX_VALUE;
+		}
+	}
+}
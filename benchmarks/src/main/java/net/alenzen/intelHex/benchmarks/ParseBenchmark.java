@@ -0,0 +1,44 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.alenzen.intelHex.IParsingError;
+import net.alenzen.intelHex.IntelHexFile;
+import net.alenzen.intelHex.InvalidFormatException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class ParseBenchmark extends FileParameters {
+	private Path file;
+
+	@Setup
+	public void setup() throws IOException {
+		file = BenchmarkData.write(size, lineLength, Layout.DENSE);
+	}
+
+	@Benchmark
+	public IntelHexFile parseReader() throws IOException, InvalidFormatException {
+		try (Reader r = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+			return IntelHexFile.parse(r, IParsingError.VOID);
+		}
+	}
+
+	@Benchmark
+	public IntelHexFile parseInputStream() throws IOException, InvalidFormatException {
+		try (InputStream s = Files.newInputStream(file)) {
+			return IntelHexFile.parse(s);
+		}
+	}
+}
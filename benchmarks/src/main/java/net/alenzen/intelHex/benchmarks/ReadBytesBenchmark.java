@@ -0,0 +1,47 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.alenzen.intelHex.IntelHexFile;
+import net.alenzen.intelHex.InvalidFormatException;
+
+@State(Scope.Benchmark)
+public class ReadBytesBenchmark extends FileParameters {
+	private static final int ADDRESS_COUNT = 1 << 12;
+
+	@Param({ "DENSE", "SPARSE", "GAP_HEAVY" })
+	public Layout layout;
+
+	@Param({ "4", "256", "65536" })
+	public int length;
+
+	private IntelHexFile hexFile;
+	private long[] addresses;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException, InvalidFormatException {
+		hexFile = IntelHexFile.parse(BenchmarkData.write(size, lineLength, layout));
+		hexFile.refreshIndex();
+
+		long end = BenchmarkData.endAddress(size, lineLength, layout);
+		Random r = new Random(1234);
+		addresses = new long[ADDRESS_COUNT];
+		for (int i = 0; i < ADDRESS_COUNT; i++) {
+			addresses[i] = (long) (r.nextDouble() * Math.max(1, end - length));
+		}
+	}
+
+	@Benchmark
+	public byte[] readBytes() {
+		next = (next + 1) & (ADDRESS_COUNT - 1);
+		return hexFile.readBytes(addresses[next], length);
+	}
+}
@@ -0,0 +1,125 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.alenzen.intelHex.IntelHexFile;
+import net.alenzen.intelHex.InvalidFormatException;
+
+/**
+ * Updates of defined bytes, updates which fill gaps between records and
+ * updates which create records across a 64 KiB address extension boundary.
+ * The gap benchmarks measure a fixed batch of updates per iteration and parse
+ * the file again before every iteration. The batches are smaller than the
+ * number of gaps of the smallest file, so every update fills a gap which has
+ * not been filled before.
+ */
+public class UpdateBytesBenchmark {
+	private static final int PATCH_LENGTH = 16;
+	// 1 MiB with 255 byte records has 4112 gaps
+	private static final int GAP_BATCH = 4096;
+	// 1 MiB in the sparse layout crosses 63 extension boundaries
+	private static final int WINDOW_BATCH = 32;
+
+	@State(Scope.Benchmark)
+	public static class InPlace extends FileParameters {
+		private static final int ADDRESS_COUNT = 1 << 12;
+
+		IntelHexFile hexFile;
+		long[] addresses = new long[ADDRESS_COUNT];
+		byte[] patch = new byte[PATCH_LENGTH];
+		int next;
+
+		@Setup
+		public void setup() throws IOException, InvalidFormatException {
+			hexFile = IntelHexFile.parse(BenchmarkData.write(size, lineLength, Layout.DENSE));
+			Random r = new Random(1234);
+			for (int i = 0; i < ADDRESS_COUNT; i++) {
+				addresses[i] = (long) (r.nextDouble() * (size - PATCH_LENGTH));
+			}
+			r.nextBytes(patch);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class GapFilling extends FileParameters {
+		Path file;
+		IntelHexFile hexFile;
+		byte[] patch;
+		long gap;
+		long gaps;
+
+		@Setup(Level.Trial)
+		public void write() throws IOException {
+			file = BenchmarkData.write(size, lineLength, Layout.GAP_HEAVY);
+			patch = new byte[lineLength];
+			// the space behind the last record is not a gap
+			gaps = (size + lineLength - 1) / lineLength - 1;
+		}
+
+		@Setup(Level.Iteration)
+		public void parse() throws IOException, InvalidFormatException {
+			hexFile = IntelHexFile.parse(file);
+			gap = 0;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ExtensionCrossing extends FileParameters {
+		Path file;
+		IntelHexFile hexFile;
+		byte[] patch = new byte[PATCH_LENGTH];
+		long window;
+		long windows;
+
+		@Setup(Level.Trial)
+		public void write() throws IOException {
+			file = BenchmarkData.write(size, lineLength, Layout.SPARSE);
+			// extension boundaries in front of the last defined byte
+			windows = (BenchmarkData.endAddress(size, lineLength, Layout.SPARSE) - 1) / 0x10000;
+		}
+
+		@Setup(Level.Iteration)
+		public void parse() throws IOException, InvalidFormatException {
+			hexFile = IntelHexFile.parse(file);
+			window = 0;
+		}
+	}
+
+	@Benchmark
+	public void inPlace(InPlace s) {
+		s.next = (s.next + 1) & (InPlace.ADDRESS_COUNT - 1);
+		s.hexFile.updateBytes(s.addresses[s.next], s.patch);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(batchSize = GAP_BATCH)
+	@Measurement(batchSize = GAP_BATCH)
+	public void gapFilling(GapFilling s) {
+		// every record of the layout is followed by a gap of the same length
+		s.hexFile.updateBytes((2 * s.gap + 1) * s.lineLength, s.patch);
+		s.gap = (s.gap + 1) % s.gaps;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(batchSize = WINDOW_BATCH)
+	@Measurement(batchSize = WINDOW_BATCH)
+	public void extensionCrossing(ExtensionCrossing s) {
+		// the gap in front of a 64 KiB boundary is not defined by the layout
+		s.window = s.window % s.windows + 1;
+		s.hexFile.updateBytes(s.window * 0x10000 - PATCH_LENGTH / 2, s.patch);
+	}
+}
@@ -0,0 +1,46 @@
+package net.alenzen.intelHex.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.alenzen.intelHex.IntelHexFile;
+import net.alenzen.intelHex.InvalidFormatException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class WriteBenchmark extends FileParameters {
+	private IntelHexFile hexFile;
+
+	@Setup
+	public void setup() throws IOException, InvalidFormatException {
+		hexFile = IntelHexFile.parse(BenchmarkData.write(size, lineLength, Layout.DENSE));
+	}
+
+	@Benchmark
+	public void writeTo() throws IOException {
+		hexFile.writeTo(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+	}
+
+	/**
+	 * Fails for images which do not fit into a single String.
+	 */
+	@Benchmark
+	public String toHexFileString() {
+		return hexFile.toHexFileString();
+	}
+}
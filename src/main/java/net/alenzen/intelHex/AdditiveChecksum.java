@@ -0,0 +1,45 @@
+package net.alenzen.intelHex;
+
+/**
+ * Sum of all bytes as unsigned values modulo {@code 2^width}.
+ */
+class AdditiveChecksum implements ChecksumAlgorithm {
+	private final long mask;
+
+	AdditiveChecksum(int width) {
+		this.mask = width == 64 ? -1L : (1L << width) - 1;
+	}
+
+	@Override
+	public long initialState() {
+		return 0;
+	}
+
+	@Override
+	public long update(long state, byte[] data, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			state += data[i] & 0xFF;
+		}
+		return state;
+	}
+
+	@Override
+	public long updateRepeated(long state, byte value, long count) {
+		return state + (value & 0xFF) * count;
+	}
+
+	@Override
+	public long finish(long state) {
+		return state & mask;
+	}
+
+	@Override
+	public boolean isCombinable() {
+		return true;
+	}
+
+	@Override
+	public long combine(long state, long partState, long partLength) {
+		return state + partState;
+	}
+}
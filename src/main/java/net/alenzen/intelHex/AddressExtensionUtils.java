@@ -4,12 +4,16 @@ import java.security.InvalidParameterException;
 
 public class AddressExtensionUtils {
 	public static long extensionOffset(RecordType type, byte[] data) {
+		return extensionOffset(type, data, 0, data.length);
+	}
+
+	public static long extensionOffset(RecordType type, byte[] data, int offset, int length) {
 		if (type == RecordType.EXTENDED_LINEAR_ADDRESS) {
-			return ByteUtils.toLong(data) << 16;
+			return ByteUtils.toLong(data, offset, length) << 16;
 		}
 
 		if (type == RecordType.EXTENDED_SEGMENT_ADDRESS) {
-			return ByteUtils.toLong(data) * 16;
+			return ByteUtils.toLong(data, offset, length) * 16;
 		}
 		
 		throw new InvalidParameterException("RecordType is not a valid address extension type!");
@@ -0,0 +1,222 @@
+package net.alenzen.intelHex;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of disjoint, sorted address ranges. Every range contains its
+ * start address and excludes its end address. Adjacent ranges are merged.
+ */
+public class AddressRangeSet {
+	static final AddressRangeSet EMPTY = new AddressRangeSet(new long[0], new long[0], 0);
+
+	private final long[] starts;
+	private final long[] ends;
+	private final int size;
+
+	private AddressRangeSet(long[] starts, long[] ends, int size) {
+		this.starts = starts;
+		this.ends = ends;
+		this.size = size;
+	}
+
+	/**
+	 * @return number of ranges
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return first address of the range
+	 */
+	public long getStart(int range) {
+		checkRange(range);
+		return starts[range];
+	}
+
+	/**
+	 * @return address after the last address of the range
+	 */
+	public long getEnd(int range) {
+		checkRange(range);
+		return ends[range];
+	}
+
+	private void checkRange(int range) {
+		if (range < 0 || range >= size) {
+			throw new IndexOutOfBoundsException("Range: " + range + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * @return number of addresses within all ranges
+	 */
+	public long getTotalLength() {
+		long length = 0;
+		for (int i = 0; i < size; i++) {
+			length += ends[i] - starts[i];
+		}
+		return length;
+	}
+
+	/**
+	 * @return true if the address is part of a range
+	 */
+	public boolean contains(long address) {
+		int i = floorIndex(address);
+		return i >= 0 && address < ends[i];
+	}
+
+	/**
+	 * @return true if all addresses within {@code [from, to)} are part of the
+	 *         set; true for empty address ranges
+	 */
+	public boolean containsAll(long from, long to) {
+		if (from >= to) {
+			return true;
+		}
+
+		int i = floorIndex(from);
+		return i >= 0 && to <= ends[i];
+	}
+
+	/**
+	 * @return true if any address within {@code [from, to)} is part of the set
+	 */
+	public boolean intersects(long from, long to) {
+		if (from >= to) {
+			return false;
+		}
+
+		int i = floorIndex(to - 1);
+		return i >= 0 && ends[i] > from;
+	}
+
+	/**
+	 * @return a set which additionally contains {@code [from, to)}
+	 */
+	AddressRangeSet with(long from, long to) {
+		if (from >= to || containsAll(from, to)) {
+			return this;
+		}
+
+		Builder builder = new Builder();
+		boolean added = false;
+		for (int i = 0; i < size; i++) {
+			if (!added && from <= starts[i]) {
+				builder.add(from, to);
+				added = true;
+			}
+			builder.add(starts[i], ends[i]);
+		}
+		if (!added) {
+			builder.add(from, to);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return index of the last range starting at or before the address, -1 if
+	 *         there is none
+	 */
+	private int floorIndex(long address) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= address) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return hi;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof AddressRangeSet)) {
+			return false;
+		}
+
+		AddressRangeSet other = (AddressRangeSet) obj;
+		return Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = size;
+		for (int i = 0; i < size; i++) {
+			h = 31 * h + Long.hashCode(starts[i]);
+			h = 31 * h + Long.hashCode(ends[i]);
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(String.format("0x%X-0x%X", starts[i], ends[i]));
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Collects ranges in ascending order and merges overlapping or adjacent
+	 * ones.
+	 */
+	public static class Builder {
+		private long[] starts = new long[16];
+		private long[] ends = new long[16];
+		private int size = 0;
+
+		/**
+		 * Adds the range {@code [start, end)}. The start address must not be lower
+		 * than the start address of the previously added range.
+		 */
+		public Builder add(long start, long end) {
+			if (start >= end) {
+				return this;
+			}
+
+			if (size > 0) {
+				if (start < starts[size - 1]) {
+					throw new IllegalArgumentException("Ranges need to be added in ascending order!");
+				}
+
+				if (start <= ends[size - 1]) {
+					ends[size - 1] = Math.max(ends[size - 1], end);
+					return this;
+				}
+			}
+
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+			return this;
+		}
+
+		/**
+		 * @return true if no range has been added yet
+		 */
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public AddressRangeSet build() {
+			return new AddressRangeSet(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), size);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package net.alenzen.intelHex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes the data of an address range as a flat binary image. The segments of
+ * the index are walked once in address order; gaps are filled in bulk with the
+ * fill byte.
+ *
+ * Files are written through memory mapped regions if the image is large,
+ * channels through a reusable direct buffer.
+ */
+class BinaryExporter {
+	static final int BUFFER_SIZE = 1 << 16;
+	static final long MAPPING_THRESHOLD = 1 << 20;
+	static final int MAPPING_CHUNK_SIZE = 1 << 28;
+
+	private final HexLineIndex index;
+	private final byte[] fillBytes;
+	private long address;
+	private int segment;
+
+	/**
+	 * @param index segments to export
+	 * @param from  address of the first byte of the image
+	 * @param fill  value of the bytes which are not defined
+	 */
+	BinaryExporter(HexLineIndex index, long from, byte fill) {
+		this.index = index;
+		this.address = from;
+		this.segment = index.ceilingIndexOf(from);
+		this.fillBytes = new byte[BUFFER_SIZE];
+		Arrays.fill(fillBytes, fill);
+	}
+
+	static void export(HexLineIndex index, WritableByteChannel channel, long from, long to, byte fill)
+			throws IOException {
+		checkRange(from, to);
+
+		BinaryExporter exporter = new BinaryExporter(index, from, fill);
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, Math.max(1, to - from)));
+		while (from < to) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), to - from));
+			exporter.next(buffer);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			from += buffer.limit();
+		}
+	}
+
+	static void export(HexLineIndex index, Path file, long from, long to, byte fill) throws IOException {
+		checkRange(from, to);
+
+		if (to - from < MAPPING_THRESHOLD) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				export(index, channel, from, to, fill);
+			}
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			BinaryExporter exporter = new BinaryExporter(index, from, fill);
+			long position = 0;
+			long size = to - from;
+			while (position < size) {
+				int length = (int) Math.min(size - position, MAPPING_CHUNK_SIZE);
+				MappedByteBuffer region = channel.map(MapMode.READ_WRITE, position, length);
+				exporter.next(region);
+				region.force();
+				position += length;
+			}
+		}
+	}
+
+	private static void checkRange(long from, long to) {
+		if (from < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		if (to < from) {
+			throw new IllegalArgumentException("End address needs to be greater than or equal to start address!");
+		}
+	}
+
+	/**
+	 * Writes the image from the current address into
+	 * {@code target[position, limit)} and moves the address forward accordingly.
+	 */
+	void next(ByteBuffer target) {
+		long end = address + target.remaining();
+
+		while (address < end) {
+			while (segment < index.size() && index.getEndAddress(segment) <= address) {
+				segment++;
+			}
+
+			long dataStart = segment < index.size() ? Math.max(address, index.getStartAddress(segment)) : end;
+			if (dataStart > address) {
+				fill(target, (int) (Math.min(dataStart, end) - address));
+				address = Math.min(dataStart, end);
+				continue;
+			}
+
+			HexFileLine line = index.getLine(segment);
+			int l = (int) (Math.min(end, index.getEndAddress(segment)) - address);
+			target.put(line.getData(), (int) (address - line.getFullStartAddress()), l);
+			address += l;
+		}
+	}
+
+	private void fill(ByteBuffer target, int length) {
+		while (length > 0) {
+			int l = Math.min(length, fillBytes.length);
+			target.put(fillBytes, 0, l);
+			length -= l;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package net.alenzen.intelHex;
+
+/**
+ * Iterates over all defined bytes of a hex file in address order without
+ * creating objects per byte.
+ * 
+ * <pre>
+ * ByteCursor c = hexFile.cursor();
+ * while (c.advance()) {
+ * 	process(c.address(), c.value());
+ * }
+ * </pre>
+ * 
+ * The cursor works on the index of the file; the records must not be modified
+ * while iterating.
+ */
+public class ByteCursor {
+	private final HexLineIndex index;
+	private int segment = -1;
+	private long address;
+	private long segmentEnd;
+	private long lineStart;
+	private byte[] data;
+
+	ByteCursor(HexLineIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Moves to the next defined byte. Needs to be called once before the first
+	 * byte can be accessed.
+	 * 
+	 * @return false if there are no more bytes
+	 */
+	public boolean advance() {
+		if (++address < segmentEnd) {
+			return true;
+		}
+
+		if (++segment >= index.size()) {
+			segment = index.size();
+			segmentEnd = 0;
+			return false;
+		}
+
+		HexFileLine line = index.getLine(segment);
+		address = index.getStartAddress(segment);
+		segmentEnd = index.getEndAddress(segment);
+		lineStart = line.getFullStartAddress();
+		data = line.getData();
+		return true;
+	}
+
+	/**
+	 * @return address of the current byte
+	 */
+	public long address() {
+		return address;
+	}
+
+	/**
+	 * @return unsigned value of the current byte
+	 */
+	public int value() {
+		return data[(int) (address - lineStart)] & 0xFF;
+	}
+}
@@ -6,9 +6,13 @@ public final class ByteUtils {
 	}
 
 	public static long toLong(byte[] data) {
+		return toLong(data, 0, data.length);
+	}
+
+	public static long toLong(byte[] data, int offset, int length) {
 		long l = 0;
-		for (int i = 0; i < data.length; i++) {
-			l += (data[i] & 0xFFL) << ((data.length - i - 1) * 8);
+		for (int i = 0; i < length; i++) {
+			l += (data[offset + i] & 0xFFL) << ((length - i - 1) * 8);
 		}
 		return l;
 	}
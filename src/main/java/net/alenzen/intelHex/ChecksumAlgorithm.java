@@ -0,0 +1,102 @@
+package net.alenzen.intelHex;
+
+import java.util.Arrays;
+
+/**
+ * Checksum which is calculated by
+ * {@link IntelHexFile#checksum(long, long, ChecksumAlgorithm, byte)}. The
+ * algorithm itself is stateless; the intermediate value is passed around as a
+ * long.
+ */
+public interface ChecksumAlgorithm {
+	/**
+	 * CRC-32 as used by zip and ethernet.
+	 */
+	ChecksumAlgorithm CRC32 = new CrcAlgorithm(32, 0x04C11DB7L, 0xFFFFFFFFL, true, 0xFFFFFFFFL);
+
+	/**
+	 * CRC-16/CCITT-FALSE with polynomial 0x1021 and initial value 0xFFFF.
+	 */
+	ChecksumAlgorithm CRC16_CCITT = new CrcAlgorithm(16, 0x1021L, 0xFFFFL, false, 0L);
+
+	/**
+	 * Sum of all bytes modulo 2^8.
+	 */
+	ChecksumAlgorithm ADDITIVE_8 = new AdditiveChecksum(8);
+
+	/**
+	 * Sum of all bytes modulo 2^16.
+	 */
+	ChecksumAlgorithm ADDITIVE_16 = new AdditiveChecksum(16);
+
+	/**
+	 * Sum of all bytes modulo 2^32.
+	 */
+	ChecksumAlgorithm ADDITIVE_32 = new AdditiveChecksum(32);
+
+	/**
+	 * Creates a table driven CRC with up to 32 bits.
+	 * 
+	 * @param width     number of bits; between 8 and 32
+	 * @param poly      polynomial without the highest bit, not reflected
+	 * @param init      initial value of the register
+	 * @param reflected true if the bits of input and output are reflected
+	 * @param xorOut    value which is XORed to the final register
+	 */
+	static ChecksumAlgorithm crc(int width, long poly, long init, boolean reflected, long xorOut) {
+		return new CrcAlgorithm(width, poly, init, reflected, xorOut);
+	}
+
+	/**
+	 * @return the intermediate value before the first byte
+	 */
+	long initialState();
+
+	/**
+	 * @return the intermediate value after {@code data[offset, offset + length)}
+	 */
+	long update(long state, byte[] data, int offset, int length);
+
+	/**
+	 * Feeds {@code count} times the same byte. Used for the gaps between the
+	 * records.
+	 * 
+	 * @return the intermediate value after the bytes
+	 */
+	default long updateRepeated(long state, byte value, long count) {
+		byte[] buffer = new byte[(int) Math.min(count, 4096)];
+		Arrays.fill(buffer, value);
+		while (count > 0) {
+			int l = (int) Math.min(count, buffer.length);
+			state = update(state, buffer, 0, l);
+			count -= l;
+		}
+		return state;
+	}
+
+	/**
+	 * @return the checksum of the intermediate value
+	 */
+	long finish(long state);
+
+	/**
+	 * @return true if {@link #combine(long, long, long)} is supported, which is
+	 *         required to calculate parts of a range in parallel
+	 */
+	default boolean isCombinable() {
+		return false;
+	}
+
+	/**
+	 * Appends a part which has been calculated independently.
+	 * 
+	 * @param state      intermediate value in front of the part
+	 * @param partState  intermediate value of the part, calculated starting with
+	 *                   the state 0
+	 * @param partLength number of bytes of the part
+	 * @return the intermediate value after the part
+	 */
+	default long combine(long state, long partState, long partLength) {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,251 @@
+package net.alenzen.intelHex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe wrapper of an {@link IntelHexFile} for many concurrent readers
+ * and a few writers.
+ *
+ * Reads are first attempted optimistically without taking any lock and are
+ * repeated under a read lock if a write interfered. Writes which only modify
+ * already defined bytes lock the 64 KiB address regions of the affected
+ * records, so patches of different regions proceed in parallel. Writes which
+ * create records take an exclusive lock.
+ *
+ * The wrapped file must not be accessed directly while it is wrapped.
+ */
+public class ConcurrentIntelHexFile {
+	private static final int STRIPE_COUNT = 64;
+	private static final int STRIPE_SHIFT = 16;
+	private static final long ALL_STRIPES = -1L;
+
+	private final IntelHexFile file;
+	// exclusive for structural changes, shared for in place writes
+	private final StampedLock structureLock = new StampedLock();
+	private final ReentrantLock[] stripeLocks = new ReentrantLock[STRIPE_COUNT];
+	// odd while an in place write of the stripe is running
+	private final AtomicLongArray stripeSequences = new AtomicLongArray(STRIPE_COUNT);
+
+	public ConcurrentIntelHexFile(IntelHexFile file) {
+		this.file = file;
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			stripeLocks[i] = new ReentrantLock();
+		}
+		file.getIndex();
+	}
+
+	/**
+	 * @see IntelHexFile#isDefined(long)
+	 */
+	public boolean isDefined(long address) {
+		long mask = stripeMask(address, address + 1);
+		long stamp = structureLock.tryOptimisticRead();
+		if (stamp != 0) {
+			long sequence = stripeSequence(mask);
+			if (sequence >= 0) {
+				try {
+					HexLineIndex index = file.peekIndex();
+					if (index != null) {
+						boolean defined = index.indexOf(address) >= 0;
+						if (structureLock.validate(stamp) && stripeSequence(mask) == sequence) {
+							return defined;
+						}
+					}
+				} catch (RuntimeException e) {
+					// interfered with a concurrent write
+				}
+			}
+		}
+
+		stamp = structureLock.readLock();
+		try {
+			return file.isDefined(address);
+		} finally {
+			structureLock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @see IntelHexFile#readBytes(long, int)
+	 */
+	public byte[] readBytes(long address, int numberOfBytes) {
+		if (address < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		if (numberOfBytes < 0) {
+			throw new IllegalArgumentException("Number of bytes needs to be positive!");
+		}
+
+		long mask = stripeMask(address, address + numberOfBytes);
+		long stamp = structureLock.tryOptimisticRead();
+		if (stamp != 0) {
+			long sequence = stripeSequence(mask);
+			if (sequence >= 0) {
+				try {
+					HexLineIndex index = file.peekIndex();
+					if (index != null) {
+						byte[] result = readBytes(index, address, numberOfBytes);
+						if (structureLock.validate(stamp) && stripeSequence(mask) == sequence) {
+							return result;
+						}
+					}
+				} catch (RuntimeException e) {
+					// interfered with a concurrent write
+				}
+			}
+		}
+
+		stamp = structureLock.readLock();
+		try {
+			lockStripes(mask);
+			try {
+				return file.readBytes(address, numberOfBytes);
+			} finally {
+				unlockStripes(mask);
+			}
+		} finally {
+			structureLock.unlockRead(stamp);
+		}
+	}
+
+	private static byte[] readBytes(HexLineIndex index, long address, int numberOfBytes) {
+		byte[] result = new byte[numberOfBytes];
+		long endAddress = address + numberOfBytes;
+		for (int i = index.ceilingIndexOf(address); i < index.size() && index.getStartAddress(i) < endAddress; i++) {
+			long from = Math.max(address, index.getStartAddress(i));
+			long to = Math.min(endAddress, index.getEndAddress(i));
+			index.getLine(i).readBytes(result, (int) (from - address), from, (int) (to - from));
+		}
+		return result;
+	}
+
+	/**
+	 * @see IntelHexFile#getDefinedRanges()
+	 */
+	public AddressRangeSet getDefinedRanges() {
+		long stamp = structureLock.readLock();
+		try {
+			return file.getDefinedRanges();
+		} finally {
+			structureLock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @see IntelHexFile#updateBytes(long, byte[])
+	 */
+	public void updateBytes(long address, byte[] bs) {
+		if (address < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		long stamp = structureLock.readLock();
+		try {
+			HexLineIndex index = file.getIndex();
+			long end = address + bs.length;
+			if (file.coverage(address, end) == bs.length) {
+				// the stripes of whole records, their checksums are updated as well
+				long mask = recordStripeMask(index, address, end);
+				lockStripes(mask);
+				try {
+					incrementSequences(mask);
+					try {
+						file.updateBytes(address, bs);
+					} finally {
+						incrementSequences(mask);
+					}
+				} finally {
+					unlockStripes(mask);
+				}
+				return;
+			}
+		} finally {
+			structureLock.unlockRead(stamp);
+		}
+
+		stamp = structureLock.writeLock();
+		try {
+			file.updateBytes(address, bs);
+			file.getIndex();
+		} finally {
+			structureLock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @see IntelHexFile#snapshot()
+	 */
+	public HexImageView snapshot() {
+		long stamp = structureLock.writeLock();
+		try {
+			return file.snapshot();
+		} finally {
+			structureLock.unlockWrite(stamp);
+		}
+	}
+
+	private static long stripeMask(long from, long to) {
+		if (to <= from) {
+			return 0;
+		}
+
+		long first = from >>> STRIPE_SHIFT;
+		long last = (to - 1) >>> STRIPE_SHIFT;
+		if (last - first >= STRIPE_COUNT - 1) {
+			return ALL_STRIPES;
+		}
+
+		long mask = 0;
+		for (long s = first; s <= last; s++) {
+			mask |= 1L << (s & (STRIPE_COUNT - 1));
+		}
+		return mask;
+	}
+
+	private static long recordStripeMask(HexLineIndex index, long from, long to) {
+		long mask = 0;
+		for (int i = index.ceilingIndexOf(from); i < index.size() && index.getStartAddress(i) < to; i++) {
+			HexFileLine line = index.getLine(i);
+			long start = line.getFullStartAddress();
+			mask |= stripeMask(start, start + line.getData().length);
+		}
+		return mask;
+	}
+
+	/**
+	 * @return sum of the sequences of the stripes or -1 if a write is running
+	 */
+	private long stripeSequence(long mask) {
+		long sum = 0;
+		for (long m = mask; m != 0; m &= m - 1) {
+			long sequence = stripeSequences.get(Long.numberOfTrailingZeros(m));
+			if ((sequence & 1) != 0) {
+				return -1;
+			}
+			sum += sequence;
+		}
+		return sum;
+	}
+
+	private void incrementSequences(long mask) {
+		for (long m = mask; m != 0; m &= m - 1) {
+			stripeSequences.incrementAndGet(Long.numberOfTrailingZeros(m));
+		}
+	}
+
+	private void lockStripes(long mask) {
+		// ascending order prevents dead locks
+		for (long m = mask; m != 0; m &= m - 1) {
+			stripeLocks[Long.numberOfTrailingZeros(m)].lock();
+		}
+	}
+
+	private void unlockStripes(long mask) {
+		for (long m = mask; m != 0; m &= m - 1) {
+			stripeLocks[Long.numberOfTrailingZeros(m)].unlock();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package net.alenzen.intelHex;
+
+/**
+ * Table driven CRC with up to 32 bits. The intermediate value is the CRC
+ * register, which is updated linearly over GF(2). Appending n zero bytes is
+ * therefore a matrix multiplication; the matrices for n = 2^k are precomputed
+ * so that long runs of the same byte and independently calculated parts are
+ * combined in O(log n).
+ */
+class CrcAlgorithm implements ChecksumAlgorithm {
+	private static final int MIN_FAST_REPEAT = 64;
+
+	private final int width;
+	private final long mask;
+	private final boolean reflected;
+	private final long init;
+	private final long xorOut;
+	private final long[] table = new long[256];
+	/**
+	 * zeroPowers[k] appends 2^k zero bytes; column i is the image of bit i.
+	 */
+	private final long[][] zeroPowers = new long[63][];
+
+	CrcAlgorithm(int width, long poly, long init, boolean reflected, long xorOut) {
+		if (width < 8 || width > 32) {
+			throw new IllegalArgumentException("CRC width needs to be between 8 and 32!");
+		}
+
+		this.width = width;
+		this.mask = (1L << width) - 1;
+		this.reflected = reflected;
+		this.init = reflected ? reflect(init & mask, width) : init & mask;
+		this.xorOut = xorOut & mask;
+
+		long p = reflected ? reflect(poly & mask, width) : poly & mask;
+		long top = 1L << (width - 1);
+		for (int i = 0; i < 256; i++) {
+			long r = reflected ? i : (long) i << (width - 8);
+			for (int bit = 0; bit < 8; bit++) {
+				if (reflected) {
+					r = (r & 1) != 0 ? (r >>> 1) ^ p : r >>> 1;
+				} else {
+					r = (r & top) != 0 ? ((r << 1) ^ p) & mask : (r << 1) & mask;
+				}
+			}
+			table[i] = r;
+		}
+
+		long[] zero = new long[width];
+		for (int i = 0; i < width; i++) {
+			zero[i] = updateByte(1L << i, 0);
+		}
+		zeroPowers[0] = zero;
+		for (int k = 1; k < zeroPowers.length; k++) {
+			long[] previous = zeroPowers[k - 1];
+			long[] square = new long[width];
+			for (int i = 0; i < width; i++) {
+				square[i] = multiply(previous, previous[i]);
+			}
+			zeroPowers[k] = square;
+		}
+	}
+
+	private static long reflect(long v, int width) {
+		return Long.reverse(v) >>> (64 - width);
+	}
+
+	private static long multiply(long[] matrix, long v) {
+		long result = 0;
+		for (int i = 0; v != 0; i++, v >>>= 1) {
+			if ((v & 1) != 0) {
+				result ^= matrix[i];
+			}
+		}
+		return result;
+	}
+
+	private long updateByte(long crc, int b) {
+		if (reflected) {
+			return table[(int) (crc ^ b) & 0xFF] ^ (crc >>> 8);
+		}
+		return (table[(int) ((crc >>> (width - 8)) ^ b) & 0xFF] ^ (crc << 8)) & mask;
+	}
+
+	/**
+	 * @return the register after appending {@code count} zero bytes
+	 */
+	private long shift(long crc, long count) {
+		for (int k = 0; count != 0; k++, count >>>= 1) {
+			if ((count & 1) != 0) {
+				crc = multiply(zeroPowers[k], crc);
+			}
+		}
+		return crc;
+	}
+
+	@Override
+	public long initialState() {
+		return init;
+	}
+
+	@Override
+	public long update(long state, byte[] data, int offset, int length) {
+		long crc = state;
+		if (reflected) {
+			for (int i = offset; i < offset + length; i++) {
+				crc = table[(int) (crc ^ data[i]) & 0xFF] ^ (crc >>> 8);
+			}
+		} else {
+			int shift = width - 8;
+			for (int i = offset; i < offset + length; i++) {
+				crc = (table[(int) ((crc >>> shift) ^ data[i]) & 0xFF] ^ (crc << 8)) & mask;
+			}
+		}
+		return crc;
+	}
+
+	/**
+	 * Long runs are calculated by doubling: the register of 2n bytes starting
+	 * with 0 is the register of n bytes shifted by n zero bytes XOR the register
+	 * of n bytes.
+	 */
+	@Override
+	public long updateRepeated(long state, byte value, long count) {
+		if (count < MIN_FAST_REPEAT) {
+			for (long i = 0; i < count; i++) {
+				state = updateByte(state, value);
+			}
+			return state;
+		}
+
+		long run = 0;
+		long length = 0;
+		for (int bit = 63 - Long.numberOfLeadingZeros(count); bit >= 0; bit--) {
+			run = shift(run, length) ^ run;
+			length <<= 1;
+			if ((count >>> bit & 1) != 0) {
+				run = updateByte(run, value);
+				length++;
+			}
+		}
+		return shift(state, count) ^ run;
+	}
+
+	@Override
+	public long finish(long state) {
+		return (state ^ xorOut) & mask;
+	}
+
+	@Override
+	public boolean isCombinable() {
+		return true;
+	}
+
+	@Override
+	public long combine(long state, long partState, long partLength) {
+		return shift(state, partLength) ^ partState;
+	}
+}
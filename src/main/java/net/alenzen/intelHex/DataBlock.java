@@ -0,0 +1,36 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Contiguous range of defined bytes.
+ * 
+ * @see IntelHexFile#iterateBlocks()
+ */
+public class DataBlock {
+	private final long startAddress;
+	private final ByteBuffer data;
+
+	DataBlock(long startAddress, ByteBuffer data) {
+		this.startAddress = startAddress;
+		this.data = data;
+	}
+
+	public long getStartAddress() {
+		return startAddress;
+	}
+
+	/**
+	 * @return address after the last byte of the block
+	 */
+	public long getEndAddress() {
+		return startAddress + data.remaining();
+	}
+
+	/**
+	 * @return read-only view on the bytes of the block
+	 */
+	public ByteBuffer getData() {
+		return data;
+	}
+}
@@ -0,0 +1,90 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the contiguous data blocks of a hex file in address order.
+ * Adjacent segments of the index are merged into a single block, up to
+ * {@link #MAX_BLOCK_LENGTH} bytes; longer runs are split into consecutive
+ * blocks of at most that length.
+ * 
+ * A block which consists of a single record is a view on the data of that
+ * record. Merged blocks are copied into a buffer of at most the maximum block
+ * length which is reused for the next block, therefore a block is only valid
+ * until {@link #next()} is called again.
+ */
+class DataBlockIterator implements Iterator<DataBlock> {
+	static final int MAX_BLOCK_LENGTH = 1 << 20;
+
+	private final HexLineIndex index;
+	private final int maxBlockLength;
+	private int segment = 0;
+	// start of the next block within the current segment
+	private long position;
+	private byte[] buffer = new byte[0];
+
+	DataBlockIterator(HexLineIndex index) {
+		this(index, MAX_BLOCK_LENGTH);
+	}
+
+	DataBlockIterator(HexLineIndex index, int maxBlockLength) {
+		this.index = index;
+		this.maxBlockLength = maxBlockLength;
+		this.position = index.size() > 0 ? index.getStartAddress(0) : 0;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return segment < index.size();
+	}
+
+	@Override
+	public DataBlock next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		int first = segment;
+		long start = position;
+		long limit = start + maxBlockLength;
+		int last = first;
+		long end = Math.min(index.getEndAddress(last), limit);
+		while (end < limit && last + 1 < index.size() && index.getStartAddress(last + 1) == end) {
+			last++;
+			end = Math.min(index.getEndAddress(last), limit);
+		}
+
+		if (end == index.getEndAddress(last)) {
+			segment = last + 1;
+			position = segment < index.size() ? index.getStartAddress(segment) : 0;
+		} else {
+			// the run continues with the rest of the last segment
+			segment = last;
+			position = end;
+		}
+
+		if (first == last) {
+			return new DataBlock(start, view(first, start, end));
+		}
+
+		int length = (int) (end - start);
+		if (buffer.length < length) {
+			buffer = new byte[length];
+		}
+		for (int i = first; i <= last; i++) {
+			long from = Math.max(index.getStartAddress(i), start);
+			long to = Math.min(index.getEndAddress(i), end);
+			index.getLine(i).readBytes(buffer, (int) (from - start), from, (int) (to - from));
+		}
+
+		return new DataBlock(start, ByteBuffer.wrap(buffer, 0, length).slice().asReadOnlyBuffer());
+	}
+
+	private ByteBuffer view(int i, long start, long end) {
+		HexFileLine line = index.getLine(i);
+		int offset = (int) (start - line.getFullStartAddress());
+		return ByteBuffer.wrap(line.getData(), offset, (int) (end - start)).slice().asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,199 @@
+package net.alenzen.intelHex;
+
+/**
+ * Options for {@link HexImageGenerator}.
+ */
+public class GeneratorOptions {
+	private long seed = 0;
+	private HexFormat format = HexFormat.I32HEX;
+	private long size = 1 << 20;
+	private long startAddress = 0;
+	private short minimumRecordLength = IntelHexFile.BYTE_COUNT_16;
+	private short maximumRecordLength = IntelHexFile.BYTE_COUNT_32;
+	private double gapDensity = 0;
+	private int maximumGapLength = 0x100;
+	private boolean shuffled = false;
+	private int shuffleWindow = 0x1000;
+	private int recordsPerLine = 1;
+	private double faultRate = 0;
+	private String lineTerminator = "\n";
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param seed files generated with the same seed and options are identical
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public HexFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @param format determines the type of the address extension records
+	 */
+	public void setFormat(HexFormat format) {
+		this.format = format;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @param size number of data bytes
+	 */
+	public void setSize(long size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Size needs to be positive!");
+		}
+		this.size = size;
+	}
+
+	public long getStartAddress() {
+		return startAddress;
+	}
+
+	/**
+	 * @param startAddress address of the first data byte
+	 */
+	public void setStartAddress(long startAddress) {
+		if (startAddress < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+		this.startAddress = startAddress;
+	}
+
+	public short getMinimumRecordLength() {
+		return minimumRecordLength;
+	}
+
+	public short getMaximumRecordLength() {
+		return maximumRecordLength;
+	}
+
+	/**
+	 * The number of data bytes of every record is drawn uniformly from
+	 * {@code [minimum, maximum]}. Records are shorter where the image or an
+	 * address extension window ends.
+	 */
+	public void setRecordLength(short minimum, short maximum) {
+		if (minimum <= 0 || maximum > IntelHexFile.BYTE_COUNT_MAX) {
+			throw new IllegalArgumentException("Record length needs to be between 1 and 255!");
+		}
+
+		if (maximum < minimum) {
+			throw new IllegalArgumentException("Maximum record length needs to be greater than or equal to minimum!");
+		}
+		this.minimumRecordLength = minimum;
+		this.maximumRecordLength = maximum;
+	}
+
+	public double getGapDensity() {
+		return gapDensity;
+	}
+
+	/**
+	 * @param gapDensity probability that a record is followed by a gap
+	 */
+	public void setGapDensity(double gapDensity) {
+		if (!(gapDensity >= 0 && gapDensity <= 1)) {
+			throw new IllegalArgumentException("Gap density needs to be between 0 and 1!");
+		}
+		this.gapDensity = gapDensity;
+	}
+
+	public int getMaximumGapLength() {
+		return maximumGapLength;
+	}
+
+	/**
+	 * @param maximumGapLength the length of a gap is drawn uniformly from
+	 *                         {@code [1, maximumGapLength]}
+	 */
+	public void setMaximumGapLength(int maximumGapLength) {
+		if (maximumGapLength <= 0) {
+			throw new IllegalArgumentException("Maximum gap length needs to be positive!");
+		}
+		this.maximumGapLength = maximumGapLength;
+	}
+
+	public boolean isShuffled() {
+		return shuffled;
+	}
+
+	/**
+	 * Shuffled records are written in random order within windows of
+	 * {@link #getShuffleWindow()} records. The defined data does not depend on
+	 * the order.
+	 */
+	public void setShuffled(boolean shuffled) {
+		this.shuffled = shuffled;
+	}
+
+	public int getShuffleWindow() {
+		return shuffleWindow;
+	}
+
+	/**
+	 * @param shuffleWindow number of records which are held in memory and
+	 *                      shuffled together
+	 */
+	public void setShuffleWindow(int shuffleWindow) {
+		if (shuffleWindow <= 0) {
+			throw new IllegalArgumentException("Shuffle window needs to be positive!");
+		}
+		this.shuffleWindow = shuffleWindow;
+	}
+
+	public int getRecordsPerLine() {
+		return recordsPerLine;
+	}
+
+	/**
+	 * @param recordsPerLine number of records written on a single line, see
+	 *                       {@link BufferedReaderHexLines}
+	 */
+	public void setRecordsPerLine(int recordsPerLine) {
+		if (recordsPerLine <= 0) {
+			throw new IllegalArgumentException("Records per line needs to be positive!");
+		}
+		this.recordsPerLine = recordsPerLine;
+	}
+
+	public double getFaultRate() {
+		return faultRate;
+	}
+
+	/**
+	 * @param faultRate probability that a data record is damaged by a wrong
+	 *                  checksum, a wrong byte count or an invalid character
+	 */
+	public void setFaultRate(double faultRate) {
+		if (!(faultRate >= 0 && faultRate <= 1)) {
+			throw new IllegalArgumentException("Fault rate needs to be between 0 and 1!");
+		}
+		this.faultRate = faultRate;
+	}
+
+	public String getLineTerminator() {
+		return lineTerminator;
+	}
+
+	/**
+	 * @param lineTerminator written after every line; defaults to "\n" so the
+	 *                       output does not depend on the system
+	 */
+	public void setLineTerminator(String lineTerminator) {
+		for (int i = 0; i < lineTerminator.length(); i++) {
+			if (lineTerminator.charAt(i) > 0x7F) {
+				throw new IllegalArgumentException("Line terminator needs to be ASCII!");
+			}
+		}
+		this.lineTerminator = lineTerminator;
+	}
+}
@@ -0,0 +1,30 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses ASCII hex content which is handed over in consecutive slices.
+ */
+interface HexContentParser {
+	/**
+	 * Decodes all records within {@code content[from, to)} using absolute
+	 * indexes. Invalid records are reported and skipped. {@code from} and
+	 * {@code to} must be record boundaries.
+	 */
+	void addRecords(ByteBuffer content, int from, int to);
+
+	IntelHexFile build();
+
+	/**
+	 * @param metrics replaces {@link ParseOptions#getDiagnosticHandler()} and
+	 *                receives the phases of the parse; may be null
+	 */
+	static HexContentParser create(ParseOptions options, ParseMetricsCollector metrics) {
+		ParseDiagnosticHandler handler = metrics == null ? options.getDiagnosticHandler() : metrics;
+		if (options.getForkJoinPool() != null) {
+			return new ParallelHexFileParser(options, handler, metrics);
+		}
+
+		return new HexFileBuilder(handler);
+	}
+}
@@ -0,0 +1,310 @@
+package net.alenzen.intelHex;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Differences between the data of two hex files. The segments of both indexes,
+ * or the records of two address ordered files, are walked together; ranges
+ * which are defined in both files are compared in bulk on the record data.
+ */
+public class HexDiff {
+	private final AddressRangeSet changed;
+	private final AddressRangeSet added;
+	private final AddressRangeSet removed;
+
+	private HexDiff(AddressRangeSet changed, AddressRangeSet added, AddressRangeSet removed) {
+		this.changed = changed;
+		this.added = added;
+		this.removed = removed;
+	}
+
+	/**
+	 * Compares the data of two hex files.
+	 *
+	 * @param a original file
+	 * @param b modified file
+	 * @return the changed, added and removed ranges
+	 */
+	public static HexDiff compare(IntelHexFile a, IntelHexFile b) {
+		AddressRangeSet.Builder changed = new AddressRangeSet.Builder();
+		AddressRangeSet.Builder added = new AddressRangeSet.Builder();
+		AddressRangeSet.Builder removed = new AddressRangeSet.Builder();
+		compare(a, b, new HexDiffHandler() {
+			@Override
+			public void onChanged(long from, long to) {
+				changed.add(from, to);
+			}
+
+			@Override
+			public void onAdded(long from, long to) {
+				added.add(from, to);
+			}
+
+			@Override
+			public void onRemoved(long from, long to) {
+				removed.add(from, to);
+			}
+		});
+		return new HexDiff(changed.build(), added.build(), removed.build());
+	}
+
+	/**
+	 * Compares the data of two hex files and passes the differences to the
+	 * handler as soon as they are found. No result is collected, therefore the
+	 * memory does not depend on the number of differences.
+	 *
+	 * @param a       original file
+	 * @param b       modified file
+	 * @param handler receives the differences in ascending address order
+	 */
+	public static void compare(IntelHexFile a, IntelHexFile b, HexDiffHandler handler) {
+		new Sweep<RuntimeException>(new IndexSource(a.getIndex()), new IndexSource(b.getIndex()), handler).run();
+	}
+
+	/**
+	 * Compares two hex files record by record without building
+	 * {@link IntelHexFile}s, so the memory does not depend on the size of the
+	 * files. The data records of both inputs need to be in ascending address
+	 * order without overlaps, as written by {@link IntelHexWriter} or
+	 * {@link IntelHexFile#compact(short)}.
+	 *
+	 * @param a       reader of the original file
+	 * @param b       reader of the modified file
+	 * @param handler receives the differences in ascending address order
+	 * @throws IOException if a data record starts before the end of the previous
+	 *                     one of the same input
+	 */
+	public static void compare(HexRecordReader a, HexRecordReader b, HexDiffHandler handler) throws IOException {
+		new Sweep<IOException>(new RecordSource(a), new RecordSource(b), handler).run();
+	}
+
+	/**
+	 * Compares two hex files with ascending data records while reading them.
+	 * Invalid records are skipped.
+	 *
+	 * @see #compare(HexRecordReader, HexRecordReader, HexDiffHandler)
+	 */
+	public static void compare(Path a, Path b, HexDiffHandler handler) throws IOException {
+		try (HexRecordReader readerA = new HexRecordReader(
+				new InputStreamReader(Files.newInputStream(a), StandardCharsets.US_ASCII), IParsingError.VOID);
+				HexRecordReader readerB = new HexRecordReader(
+						new InputStreamReader(Files.newInputStream(b), StandardCharsets.US_ASCII),
+						IParsingError.VOID)) {
+			compare(readerA, readerB, handler);
+		}
+	}
+
+	/**
+	 * @return ranges which are defined in both files with different values
+	 */
+	public AddressRangeSet getChanged() {
+		return changed;
+	}
+
+	/**
+	 * @return ranges which are only defined in the second file
+	 */
+	public AddressRangeSet getAdded() {
+		return added;
+	}
+
+	/**
+	 * @return ranges which are only defined in the first file
+	 */
+	public AddressRangeSet getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return true if both files define the same data
+	 */
+	public boolean isEmpty() {
+		return changed.isEmpty() && added.isEmpty() && removed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "changed " + changed + ", added " + added + ", removed " + removed;
+	}
+
+	/**
+	 * Current segment of one side of the comparison.
+	 *
+	 * @param <E> exception thrown while moving to the next segment
+	 */
+	private static abstract class Source<E extends Exception> {
+		// Long.MAX_VALUE after the last segment
+		long start;
+		long end;
+		// data[offset] is the byte at start
+		byte[] data;
+		int offset;
+
+		/**
+		 * Moves to the next segment.
+		 */
+		abstract void advance() throws E;
+
+		boolean hasSegment() {
+			return start != Long.MAX_VALUE;
+		}
+
+		void set(long start, long end, byte[] data, int offset) {
+			this.start = start;
+			this.end = end;
+			this.data = data;
+			this.offset = offset;
+		}
+	}
+
+	private static class IndexSource extends Source<RuntimeException> {
+		private final HexLineIndex index;
+		private int segment = -1;
+
+		IndexSource(HexLineIndex index) {
+			this.index = index;
+			advance();
+		}
+
+		@Override
+		void advance() {
+			if (++segment >= index.size()) {
+				set(Long.MAX_VALUE, Long.MAX_VALUE, null, 0);
+				return;
+			}
+
+			HexFileLine l = index.getLine(segment);
+			long start = index.getStartAddress(segment);
+			set(start, index.getEndAddress(segment), l.getData(), (int) (start - l.getFullStartAddress()));
+		}
+	}
+
+	/**
+	 * Data records of a reader. The data buffer of the reader is only used until
+	 * the next record is read.
+	 */
+	private static class RecordSource extends Source<IOException> {
+		private final HexRecordReader reader;
+
+		RecordSource(HexRecordReader reader) throws IOException {
+			this.reader = reader;
+			this.end = Long.MIN_VALUE;
+			advance();
+		}
+
+		@Override
+		void advance() throws IOException {
+			HexRecord r;
+			while ((r = reader.next()) != null) {
+				if (r.getType() != RecordType.DATA || r.getDataLength() == 0) {
+					continue;
+				}
+
+				if (r.getFullAddress() < end) {
+					throw new IOException(String.format(
+							"Data record in line %d is not in ascending address order or overlaps the previous one.",
+							r.getLineNumber()));
+				}
+				set(r.getFullAddress(), r.getFullAddress() + r.getDataLength(), r.getData(), 0);
+				return;
+			}
+			set(Long.MAX_VALUE, Long.MAX_VALUE, null, 0);
+		}
+	}
+
+	private static class Sweep<E extends Exception> {
+		private static final int NONE = 0;
+		private static final int CHANGED = 1;
+		private static final int ADDED = 2;
+		private static final int REMOVED = 3;
+
+		private final Source<? extends E> a;
+		private final Source<? extends E> b;
+		private final HexDiffHandler handler;
+
+		// range which may still be extended by the following one
+		private int pendingKind = NONE;
+		private long pendingFrom;
+		private long pendingTo;
+
+		Sweep(Source<? extends E> a, Source<? extends E> b, HexDiffHandler handler) {
+			this.a = a;
+			this.b = b;
+			this.handler = handler;
+		}
+
+		void run() throws E {
+			long position = Math.min(a.start, b.start);
+			while (a.hasSegment() || b.hasSegment()) {
+				boolean inA = a.start <= position;
+				boolean inB = b.start <= position;
+				long next = Math.min(inA ? a.end : a.start, inB ? b.end : b.start);
+
+				if (inA && inB) {
+					compareData(position, next);
+				} else if (inA) {
+					report(REMOVED, position, next);
+				} else if (inB) {
+					report(ADDED, position, next);
+				}
+
+				position = next;
+				if (a.hasSegment() && a.end <= position) {
+					a.advance();
+				}
+				if (b.hasSegment() && b.end <= position) {
+					b.advance();
+				}
+			}
+			report(NONE, 0, 0);
+		}
+
+		private void compareData(long from, long to) {
+			byte[] dataA = a.data;
+			byte[] dataB = b.data;
+			int offsetA = a.offset + (int) (from - a.start);
+			int offsetB = b.offset + (int) (from - b.start);
+			int length = (int) (to - from);
+			int k = 0;
+			while (k < length) {
+				while (k < length && dataA[offsetA + k] == dataB[offsetB + k]) {
+					k++;
+				}
+				int changeStart = k;
+				while (k < length && dataA[offsetA + k] != dataB[offsetB + k]) {
+					k++;
+				}
+				if (k > changeStart) {
+					report(CHANGED, from + changeStart, from + k);
+				}
+			}
+		}
+
+		private void report(int kind, long from, long to) {
+			if (kind == pendingKind && from == pendingTo) {
+				pendingTo = to;
+				return;
+			}
+
+			switch (pendingKind) {
+			case CHANGED:
+				handler.onChanged(pendingFrom, pendingTo);
+				break;
+			case ADDED:
+				handler.onAdded(pendingFrom, pendingTo);
+				break;
+			case REMOVED:
+				handler.onRemoved(pendingFrom, pendingTo);
+				break;
+			}
+
+			pendingKind = kind;
+			pendingFrom = from;
+			pendingTo = to;
+		}
+	}
+}
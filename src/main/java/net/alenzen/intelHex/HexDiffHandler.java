@@ -0,0 +1,36 @@
+package net.alenzen.intelHex;
+
+/**
+ * Receives the differences between two hex files in ascending address order.
+ * Adjacent ranges of the same kind are reported as one range.
+ * 
+ * @see HexDiff#compare(IntelHexFile, IntelHexFile, HexDiffHandler)
+ */
+public interface HexDiffHandler {
+	/**
+	 * Called for a range which is defined in both files with different values.
+	 * 
+	 * @param from first address of the range
+	 * @param to   address after the last address of the range
+	 */
+	default void onChanged(long from, long to) {
+	}
+
+	/**
+	 * Called for a range which is only defined in the second file.
+	 * 
+	 * @param from first address of the range
+	 * @param to   address after the last address of the range
+	 */
+	default void onAdded(long from, long to) {
+	}
+
+	/**
+	 * Called for a range which is only defined in the first file.
+	 * 
+	 * @param from first address of the range
+	 * @param to   address after the last address of the range
+	 */
+	default void onRemoved(long from, long to) {
+	}
+}
@@ -0,0 +1,79 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects parsed records in file order, links them to the latest address
+ * extension and determines the {@link HexFormat} of the file.
+ */
+class HexFileBuilder implements HexContentParser {
+	private final ParseDiagnosticHandler handler;
+	private final HexRecordDecoder decoder;
+	private final ParseDiagnostic conflict = new ParseDiagnostic();
+	private final List<HexFileLine> lines = new ArrayList<HexFileLine>();
+	private HexFormat format = HexFormat.I8HEX;
+	private HexFileLine latestAddressExtension = null;
+	private long linenumber = 0;
+
+	HexFileBuilder(ParseDiagnosticHandler handler) {
+		this.handler = handler;
+		this.decoder = new HexRecordDecoder(handler);
+	}
+
+	/**
+	 * Decodes a single record line. Invalid lines are reported and skipped.
+	 */
+	void addRecord(String line) {
+		linenumber++;
+		if (decoder.decode(linenumber, line)) {
+			add(linenumber, line, decoder.toHexFileLine(linenumber, latestAddressExtension));
+		}
+	}
+
+	@Override
+	public void addRecords(ByteBuffer content, int from, int to) {
+		HexRecordScanner scanner = new HexRecordScanner(content, from, to);
+		while (scanner.next()) {
+			linenumber++;
+			if (decoder.decode(linenumber, content, scanner.getRecordStart(), scanner.getRecordEnd())) {
+				add(linenumber, null, decoder.toHexFileLine(linenumber, latestAddressExtension));
+			}
+		}
+	}
+
+	private void add(long linenumber, String line, HexFileLine l) {
+		if (isAddressExtension(l.getType())) {
+			latestAddressExtension = l;
+		}
+
+		HexFormat formatFromLine = HexFormat.determineFormat(l.getType());
+
+		if (format == HexFormat.I8HEX) {
+			format = formatFromLine;
+		} else if (formatFromLine != HexFormat.I8HEX && formatFromLine != format) {
+			handler.report(formatConflict(conflict, linenumber, line, l, format, formatFromLine));
+		}
+
+		lines.add(l);
+	}
+
+	static boolean isAddressExtension(RecordType type) {
+		return type == RecordType.EXTENDED_LINEAR_ADDRESS || type == RecordType.EXTENDED_SEGMENT_ADDRESS;
+	}
+
+	/**
+	 * @param line the record as read or null to use the encoded record
+	 */
+	static ParseDiagnostic formatConflict(ParseDiagnostic diagnostic, long linenumber, String line,
+			HexFileLine record, HexFormat expected, HexFormat found) {
+		// the record type is in column 8
+		return diagnostic.set(ParseErrorCode.FORMAT_CONFLICT, linenumber, 8, line, record).formats(expected, found);
+	}
+
+	@Override
+	public IntelHexFile build() {
+		return new IntelHexFile(lines, format);
+	}
+}
@@ -1,49 +1,65 @@
 package net.alenzen.intelHex;
 
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
+/**
+ * Iterates over the defined bytes of the current records in address order.
+ * Adding, removing or moving records while iterating causes a
+ * {@link ConcurrentModificationException}.
+ */
 public class HexFileIterator implements Iterator<Entry<Long, Byte>> {
 	private IntelHexFile hf;
 	private HexLineIndex hexFileIndex;
-	int lineIndex = 0;
-	int byteIndex = 0;
+	private final int expectedModificationCount;
+	int segmentIndex = 0;
+	long address;
 
 	public HexFileIterator(IntelHexFile intelHexFile) {
 		this.hf = intelHexFile;
-		hexFileIndex = new HexLineIndex(hf);
+		hexFileIndex = hf.getIndex();
+		expectedModificationCount = hf.getModificationCount();
+		if (hexFileIndex.size() > 0) {
+			address = hexFileIndex.getStartAddress(0);
+		}
 	}
 
 	@Override
 	public boolean hasNext() {
-		if (!lineHasByteIndex(lineIndex, byteIndex)) {
-			lineIndex++;
-			byteIndex = 0;
+		if (hf.getModificationCount() != expectedModificationCount) {
+			throw new ConcurrentModificationException();
+		}
+
+		if (!segmentHasAddress(segmentIndex, address)) {
+			segmentIndex++;
+			if (segmentIndex < hexFileIndex.size()) {
+				address = hexFileIndex.getStartAddress(segmentIndex);
+			}
 		}
 
-		return lineHasByteIndex(lineIndex, byteIndex);
+		return segmentHasAddress(segmentIndex, address);
 	}
 
-	private boolean lineHasByteIndex(int line, int i) {
-		return hexFileIndex.getSortedDataLines().size() > line
-				&& hexFileIndex.getSortedDataLines().get(line).getData().length > i;
+	private boolean segmentHasAddress(int segment, long a) {
+		return hexFileIndex.size() > segment && hexFileIndex.getEndAddress(segment) > a;
 	}
 
 	@Override
 	public Entry<Long, Byte> next() {
-		if (!lineHasByteIndex(lineIndex, byteIndex)) {
-			lineIndex++;
-			byteIndex = 0;
+		if (!hasNext()) {
+			throw new NoSuchElementException();
 		}
 		Entry<Long, Byte> e = createEntry();
-		byteIndex++;
+		address++;
 		return e;
 	}
 
 	private Entry<Long, Byte> createEntry() {
-		HexFileLine r = hexFileIndex.getSortedDataLines().get(lineIndex);
-		long address = r.getFullStartAddress() + byteIndex;
-		byte v = r.getData()[byteIndex];
+		HexFileLine r = hexFileIndex.getLine(segmentIndex);
+		long address = this.address;
+		byte v = r.getData()[(int) (address - r.getFullStartAddress())];
 
 		return new Entry<Long, Byte>() {
 			private byte value = v;
@@ -13,6 +13,18 @@ public class HexFileLine {
 	private RecordType type;
 	private byte[] data;
 	private byte checksum;
+	private HexRecordList owner;
+	// set while the record list inserts new lines behind this one
+	private boolean insertAnchor;
+
+	// incremented on every change of address, type, data or extension
+	private int version = 0;
+	// offset of an address extension record, valid while it equals version
+	private long cachedOffset;
+	private volatile int cachedOffsetVersion = -1;
+	// full start address, valid while it equals the version of the extension
+	private long cachedFullStartAddress;
+	private volatile int cachedExtensionVersion = -1;
 
 	public HexFileLine(long lineNumber, short length, int address, byte type, byte[] data, byte checksum,
 			HexFileLine addressExtension) throws EnumConstantNotPresentException {
@@ -35,18 +47,38 @@ public class HexFileLine {
 		this.updateMetadata();
 	}
 
+	/**
+	 * The full start address is cached together with the version of the address
+	 * extension record it has been calculated from, so repeated calls do not
+	 * decode the extension again.
+	 */
 	public long getFullStartAddress() {
-		if (addressExtension == null) {
+		HexFileLine extension = addressExtension;
+		if (extension == null) {
 			return address;
 		}
 
-		return AddressExtensionUtils.fullAddress(addressExtension.getType(), addressExtension.getData(), this.address);
+		int extensionVersion = extension.version;
+		if (cachedExtensionVersion != extensionVersion) {
+			cachedFullStartAddress = extension.getExtendedAddressOffset() + address;
+			cachedExtensionVersion = extensionVersion;
+		}
+		return cachedFullStartAddress;
 	}
 
+	/**
+	 * The offset of an address extension record is decoded once per change of
+	 * the record. Modifications of the array returned by {@link #getData()}
+	 * therefore need to be followed by {@link #setData(byte[])}.
+	 */
 	public long getExtendedAddressOffset() {
 		if (this.getType() == RecordType.EXTENDED_LINEAR_ADDRESS
 				|| this.getType() == RecordType.EXTENDED_SEGMENT_ADDRESS) {
-			return AddressExtensionUtils.extensionOffset(this.getType(), data);
+			if (cachedOffsetVersion != version) {
+				cachedOffset = AddressExtensionUtils.extensionOffset(this.getType(), data);
+				cachedOffsetVersion = version;
+			}
+			return cachedOffset;
 		}
 
 		if (this.addressExtension != null) {
@@ -65,7 +97,10 @@ public class HexFileLine {
 	}
 
 	public void setAddressExtension(HexFileLine addressExtension) {
+		long oldStart = getFullStartAddress();
+		long oldOffset = getExtendedAddressOffset();
 		this.addressExtension = addressExtension;
+		changed(oldStart, data.length, type, oldOffset);
 	}
 
 	public short getLength() {
@@ -81,7 +116,9 @@ public class HexFileLine {
 	}
 
 	public void setAddress(int address) {
+		long oldStart = getFullStartAddress();
 		this.address = address;
+		changed(oldStart, data.length, type, getExtendedAddressOffset());
 	}
 
 	public RecordType getType() {
@@ -89,7 +126,10 @@ public class HexFileLine {
 	}
 
 	public void setType(RecordType type) {
+		RecordType oldType = this.type;
+		long oldOffset = getExtendedAddressOffset();
 		this.type = type;
+		changed(getFullStartAddress(), data.length, oldType, oldOffset);
 	}
 
 	public byte[] getData() {
@@ -97,7 +137,10 @@ public class HexFileLine {
 	}
 
 	public void setData(byte[] data) {
+		int oldLength = this.data.length;
+		long oldOffset = getExtendedAddressOffset();
 		this.data = data;
+		changed(getFullStartAddress(), oldLength, type, oldOffset);
 	}
 
 	public byte getChecksum() {
@@ -110,36 +153,12 @@ public class HexFileLine {
 
 	public static HexFileLine parse(long linenumber, String line, HexFileLine latestAddressExtension,
 			IParsingError log) {
-		line = line.trim();
-
-		if (!line.startsWith(":")) {
-			log.log(linenumber, line, "Line does not start with ':'. Added : and try to continue.");
-			line = ':' + line;
-		}
-
-		if (line.length() < 11) {
-			log.log(linenumber, line, "Line does not meet the minimal length of 10. Skipping line.");
+		HexRecordDecoder decoder = new HexRecordDecoder(log);
+		if (!decoder.decode(linenumber, line)) {
 			return null;
 		}
 
-		try {
-			short length = parseShortHex(line.substring(1, 3));
-			int address = parseHex(line.substring(3, 7));
-			byte type = parseHexByte(line.substring(7, 9));
-
-			byte checksum = parseHexByte(line.substring(line.length() - 2, line.length()));
-
-			byte[] data = parseHexPerByte(line.substring(9, line.length() - 2));
-
-			return new HexFileLine(linenumber, length, address, type, data, checksum, latestAddressExtension);
-		} catch (NumberFormatException e) {
-			log.log(linenumber, line, String.format("Invalid hex symbols: %s\nSkipping line.", e.getMessage()));
-			return null;
-		} catch (EnumConstantNotPresentException e1) {
-			log.log(linenumber, line,
-					String.format("Cannot determine record type: %s\nSkipping line.", e1.getMessage()));
-			return null;
-		}
+		return decoder.toHexFileLine(linenumber, latestAddressExtension);
 	}
 
 	public String toString() {
@@ -232,26 +251,6 @@ public class HexFileLine {
 		updateChecksum();
 	}
 
-	private static byte parseHexByte(String hex) {
-		return (byte) Integer.parseInt(hex, 16);
-	}
-
-	private static byte[] parseHexPerByte(String hex) {
-		byte[] d = new byte[hex.length() / 2];
-		for (int i = 0; i < d.length; i++) {
-			d[i] = (byte) Short.parseShort(hex.substring(i * 2, i * 2 + 2), 16);
-		}
-		return d;
-	}
-
-	private static int parseHex(String hex) {
-		return Integer.parseUnsignedInt(hex, 16);
-	}
-
-	private static short parseShortHex(String hex) {
-		return Short.parseShort(hex, 16);
-	}
-
 	public long getLineNumber() {
 		return lineNumber;
 	}
@@ -300,13 +299,36 @@ public class HexFileLine {
 	 * @return
 	 */
 	public int updateBytes(long startAddress, int offset, byte[] bs) {
+		return updateBytes(startAddress, offset, bs, bs.length - offset);
+	}
+
+	/**
+	 * Updates existing bytes of the line starting at the full address
+	 * 'startAddress'. Maximum {@code maxNumberOfBytes} will be written.
+	 * 
+	 * @param startAddress     full start address where the data should be
+	 *                         written to.
+	 * @param offset           Offset which need to be applied to the indexes of bs
+	 * @param bs               Data which is written to the line
+	 * @param maxNumberOfBytes maximum number of bytes which shall be written
+	 * @return Returns the number of written bytes
+	 */
+	public int updateBytes(long startAddress, int offset, byte[] bs, int maxNumberOfBytes) {
 		int lineOffset = (int) (startAddress - this.getFullStartAddress());
-		int bulkByteEdit = Math.min(bs.length - offset, this.data.length - lineOffset);
+		int bulkByteEdit = Math.min(Math.min(bs.length - offset, maxNumberOfBytes), this.data.length - lineOffset);
+		boolean addressExtension = HexFileBuilder.isAddressExtension(type);
+		long oldOffset = addressExtension ? getExtendedAddressOffset() : 0;
 
 		for (int i = 0; i < bulkByteEdit; i++) {
 			this.data[lineOffset++] = bs[offset++];
 		}
 
+		if (addressExtension) {
+			// moves the lines which refer to this extension
+			changed(getFullStartAddress(), data.length, type, oldOffset);
+		} else {
+			modified();
+		}
 		updateChecksum();
 
 		return bulkByteEdit;
@@ -332,9 +354,54 @@ public class HexFileLine {
 			newData[i] = bs[offset++];
 		}
 
+		int oldLength = this.data.length;
+		long oldOffset = getExtendedAddressOffset();
 		this.data = newData;
 
 		updateMetadata();
+		changed(getFullStartAddress(), oldLength, type, oldOffset);
+	}
+
+	void setOwner(HexRecordList owner) {
+		this.owner = owner;
+	}
+
+	void setInsertAnchor(boolean insertAnchor) {
+		this.insertAnchor = insertAnchor;
+	}
+
+	boolean isInsertAnchor() {
+		return insertAnchor;
+	}
+
+	/**
+	 * Informs the record list which contains this line about a change of the
+	 * address range or type.
+	 * 
+	 * @param oldExtensionOffset offset applied to the lines which refer to this
+	 *                           line as address extension before the change
+	 */
+	private void changed(long oldStartAddress, int oldLength, RecordType oldType, long oldExtensionOffset) {
+		modified();
+		if (owner != null) {
+			owner.recordChanged(this, oldStartAddress, oldLength, oldType, oldExtensionOffset);
+		}
+	}
+
+	/**
+	 * @return counter which is incremented on every modification of this line
+	 */
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Invalidates the cached addresses of this line and of all lines which use
+	 * it as address extension.
+	 */
+	private void modified() {
+		version = (version + 1) & Integer.MAX_VALUE;
+		cachedExtensionVersion = -1;
 	}
 
 	public void writeTo(OutputStream os, Charset cs) throws IOException {
@@ -0,0 +1,222 @@
+package net.alenzen.intelHex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Merges the data of multiple hex files with a k-way sweep over the segments
+ * of their indexes. The sweep visits every segment boundary once; between two
+ * boundaries the set of files which define the addresses does not change, so
+ * the winning file is determined once per range.
+ *
+ * The merged data is written through a {@link HexLineFactory}, which coalesces
+ * adjacent ranges into full records.
+ */
+class HexFileMerger {
+	private final List<IntelHexFile> files;
+	private final MergeOptions options;
+	private final AddressRangeSet.Builder conflicts = new AddressRangeSet.Builder();
+
+	HexFileMerger(List<IntelHexFile> files, MergeOptions options) {
+		this.files = files;
+		this.options = options;
+	}
+
+	/**
+	 * Runs the tasks, on the pool if there is one.
+	 */
+	static <T> List<T> load(List<ForkJoinTask<T>> tasks, ForkJoinPool pool) {
+		if (pool != null) {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		} else {
+			tasks.forEach(ForkJoinTask::invoke);
+		}
+
+		List<T> results = new ArrayList<T>(tasks.size());
+		for (ForkJoinTask<T> t : tasks) {
+			results.add(t.join());
+		}
+		return results;
+	}
+
+	/**
+	 * Parses the files, on the pool if there is one.
+	 */
+	static List<IntelHexFile> parseAll(List<Path> files, ParseOptions parseOptions, ForkJoinPool pool)
+			throws IOException, InvalidFormatException {
+		List<ForkJoinTask<IntelHexFile>> parseTasks = new ArrayList<>(files.size());
+		for (Path p : files) {
+			parseTasks.add(ForkJoinTask.adapt(() -> IntelHexFile.parse(p, parseOptions)));
+		}
+
+		try {
+			return load(parseTasks, pool);
+		} catch (RuntimeException e) {
+			// checked exceptions of the tasks are wrapped, possibly more than once
+			for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+				if (t instanceof IOException) {
+					throw (IOException) t;
+				}
+				if (t instanceof InvalidFormatException) {
+					throw (InvalidFormatException) t;
+				}
+			}
+			throw e;
+		}
+	}
+
+	IntelHexFile merge() throws OverlapException {
+		// one task per instance, so that no index is built by two threads at once
+		Map<IntelHexFile, ForkJoinTask<HexLineIndex>> indexTasks = new IdentityHashMap<>();
+		for (IntelHexFile f : files) {
+			indexTasks.computeIfAbsent(f, k -> ForkJoinTask.adapt(k::getIndex));
+		}
+		load(new ArrayList<>(indexTasks.values()), options.getForkJoinPool());
+		List<HexLineIndex> indexes = new ArrayList<HexLineIndex>(files.size());
+		for (IntelHexFile f : files) {
+			indexes.add(indexTasks.get(f).join());
+		}
+
+		HexFormat format = options.getFormat();
+		if (format == null) {
+			format = HexFormat.I8HEX;
+			for (IntelHexFile f : files) {
+				if (f.getHexFormat().ordinal() > format.ordinal()) {
+					format = f.getHexFormat();
+				}
+			}
+		}
+
+		List<HexFileLine> records = new ArrayList<HexFileLine>();
+		HexLineFactory<RuntimeException> factory = HexLineFactory.toLines(format,
+				options.getMaximumLineByteCount(), records::add);
+		sweep(indexes, factory);
+		factory.finish();
+
+		if (!conflicts.isEmpty()) {
+			AddressRangeSet c = conflicts.build();
+			if (options.getOverlapPolicy() == OverlapPolicy.FAIL) {
+				throw new OverlapException(c);
+			}
+			if (options.getConflictHandler() != null) {
+				options.getConflictHandler().accept(c);
+			}
+		}
+
+		records.add(new HexFileLine(0, RecordType.END_OF_FILE, new byte[0], null));
+		IntelHexFile merged = new IntelHexFile(records, format);
+		merged.setMaximumLineByteCount(options.getMaximumLineByteCount());
+		return merged;
+	}
+
+	/**
+	 * Position of a file within its index. The key is the start of the current
+	 * segment while the segment is not active and its end while it is active.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+		private final int file;
+		private final HexLineIndex index;
+		private int segment = 0;
+		private boolean active = false;
+
+		Cursor(int file, HexLineIndex index) {
+			this.file = file;
+			this.index = index;
+		}
+
+		long key() {
+			return active ? index.getEndAddress(segment) : index.getStartAddress(segment);
+		}
+
+		@Override
+		public int compareTo(Cursor o) {
+			int c = Long.compare(key(), o.key());
+			return c != 0 ? c : Integer.compare(file, o.file);
+		}
+	}
+
+	private void sweep(List<HexLineIndex> indexes, HexLineFactory<RuntimeException> factory) {
+		Cursor[] cursors = new Cursor[indexes.size()];
+		PriorityQueue<Cursor> events = new PriorityQueue<Cursor>(Math.max(1, indexes.size()));
+		for (int i = 0; i < cursors.length; i++) {
+			cursors[i] = new Cursor(i, indexes.get(i));
+			if (indexes.get(i).size() > 0) {
+				events.add(cursors[i]);
+			}
+		}
+
+		BitSet active = new BitSet(cursors.length);
+		while (!events.isEmpty()) {
+			long position = events.peek().key();
+			while (!events.isEmpty() && events.peek().key() == position) {
+				Cursor c = events.poll();
+				if (c.active) {
+					c.active = false;
+					active.clear(c.file);
+					if (++c.segment < c.index.size()) {
+						events.add(c);
+					}
+				} else {
+					c.active = true;
+					active.set(c.file);
+					events.add(c);
+				}
+			}
+
+			if (active.isEmpty()) {
+				continue;
+			}
+
+			// an active segment always has a pending end event
+			long end = events.peek().key();
+			int winner = options.getOverlapPolicy() == OverlapPolicy.LAST_WINS ? active.length() - 1
+					: active.nextSetBit(0);
+			Cursor w = cursors[winner];
+			HexFileLine line = w.index.getLine(w.segment);
+			int offset = (int) (position - line.getFullStartAddress());
+			int length = (int) (end - position);
+
+			if (active.cardinality() > 1) {
+				checkConflicts(cursors, active, line.getData(), offset, position, length);
+			}
+
+			factory.add(position, line.getData(), offset, length);
+		}
+	}
+
+	/**
+	 * Adds the addresses of {@code [position, position + length)} at which an
+	 * active file differs from the winning data to the conflicts.
+	 */
+	private void checkConflicts(Cursor[] cursors, BitSet active, byte[] data, int offset, long position,
+			int length) {
+		long conflictStart = -1;
+		for (int j = 0; j < length; j++) {
+			boolean differs = false;
+			for (int i = active.nextSetBit(0); i >= 0 && !differs; i = active.nextSetBit(i + 1)) {
+				Cursor c = cursors[i];
+				HexFileLine other = c.index.getLine(c.segment);
+				differs = other.getData()[(int) (position + j - other.getFullStartAddress())] != data[offset + j];
+			}
+
+			if (differs && conflictStart < 0) {
+				conflictStart = position + j;
+			} else if (!differs && conflictStart >= 0) {
+				conflicts.add(conflictStart, position + j);
+				conflictStart = -1;
+			}
+		}
+
+		if (conflictStart >= 0) {
+			conflicts.add(conflictStart, position + length);
+		}
+	}
+}
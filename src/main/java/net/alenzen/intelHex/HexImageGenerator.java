@@ -0,0 +1,360 @@
+package net.alenzen.intelHex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Writes seeded synthetic hex files for benchmarks and scale tests. The output
+ * is streamed; only the records of one shuffle window are held in memory, so
+ * files of any size are generated in constant memory.
+ *
+ * The data, the record lengths and the gaps depend only on the seed, the
+ * size, the format and the record and gap options. Shuffling and faults use
+ * separate random sequences and do not change the other records.
+ */
+public class HexImageGenerator {
+	private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E',
+			'F' };
+	private static final long WINDOW_SIZE = 0x10000;
+	private static final long SHUFFLE_SALT = 0x5DEECE66DL;
+	private static final long FAULT_SALT = 0xBB67AE85L;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final GeneratorOptions options;
+
+	public HexImageGenerator(GeneratorOptions options) {
+		this.options = options;
+	}
+
+	/**
+	 * Writes the file; an existing file is replaced.
+	 *
+	 * @return number of damaged records
+	 */
+	public long generate(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			return generate(channel);
+		}
+	}
+
+	/**
+	 * Writes the records to the channel. The channel is not closed.
+	 *
+	 * @return number of damaged records
+	 * @throws IllegalArgumentException if the image exceeds the address range of
+	 *                                  the format
+	 */
+	public long generate(WritableByteChannel channel) throws IOException {
+		Output out = new Output(channel);
+		Random random = new Random(options.getSeed());
+		RecordType extensionType = options.getFormat().getAddressExtension();
+		int minimumLength = options.getMinimumRecordLength();
+		int lengthRange = options.getMaximumRecordLength() - minimumLength + 1;
+
+		long address = options.getStartAddress();
+		long extensionOffset = 0;
+		int extension = -1;
+		long written = 0;
+		while (written < options.getSize()) {
+			if (extension < 0 || address >= extensionOffset + WINDOW_SIZE) {
+				if (address < WINDOW_SIZE) {
+					extension = 0;
+					extensionOffset = 0;
+				} else if (extensionType == null) {
+					throw new IllegalArgumentException(
+							String.format("Address 0x%X cannot be represented without address extension!", address));
+				} else {
+					extension = AddressExtensionUtils.extensionOffsetFromFullAddress(extensionType, address);
+					if (extension > HexFileLine.ADDRESS_MAX) {
+						throw new IllegalArgumentException(String.format("Address 0x%X exceeds the address range of %s!",
+								address, extensionType.name()));
+					}
+					extensionOffset = AddressExtensionUtils.extensionOffset(extensionType,
+							ByteUtils.shortToByteArray((short) extension), 0, 2);
+				}
+			}
+
+			int length = (int) Math.min(Math.min(minimumLength + random.nextInt(lengthRange),
+					options.getSize() - written), extensionOffset + WINDOW_SIZE - address);
+			Record record = out.next();
+			record.address = (int) (address - extensionOffset);
+			record.extension = extension;
+			record.length = length;
+			for (int i = 0; i < length; i++) {
+				record.data[i] = (byte) random.nextInt();
+			}
+			out.add();
+
+			written += length;
+			address += length;
+			if (options.getGapDensity() > 0 && random.nextDouble() < options.getGapDensity()) {
+				address += 1 + random.nextInt(options.getMaximumGapLength());
+			}
+		}
+
+		out.finish();
+		return out.faults;
+	}
+
+	private static class Record {
+		int address;
+		int extension;
+		int length;
+		final byte[] data = new byte[IntelHexFile.BYTE_COUNT_MAX];
+	}
+
+	/**
+	 * Buffers the records of a shuffle window and encodes them.
+	 */
+	private class Output {
+		private final WritableByteChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private final byte[] lineTerminator;
+		private final RecordType extensionType = options.getFormat().getAddressExtension();
+		private final Record[] window;
+		private final Random shuffleRandom = new Random(options.getSeed() ^ SHUFFLE_SALT);
+		private final Random faultRandom = new Random(options.getSeed() ^ FAULT_SALT);
+		private final byte[] extensionData = new byte[2];
+		private final byte[] encoded = new byte[11 + IntelHexFile.BYTE_COUNT_MAX * 2];
+		private int count = 0;
+		private int currentExtension = 0;
+		private int recordsInLine = 0;
+		long faults = 0;
+
+		Output(WritableByteChannel channel) {
+			this.channel = channel;
+			String terminator = options.getLineTerminator();
+			this.lineTerminator = new byte[terminator.length()];
+			for (int i = 0; i < lineTerminator.length; i++) {
+				lineTerminator[i] = (byte) terminator.charAt(i);
+			}
+			this.window = new Record[options.isShuffled() ? options.getShuffleWindow() : 1];
+		}
+
+		Record next() {
+			if (window[count] == null) {
+				window[count] = new Record();
+			}
+			return window[count];
+		}
+
+		void add() throws IOException {
+			if (++count == window.length) {
+				flushWindow();
+			}
+		}
+
+		private void flushWindow() throws IOException {
+			if (options.isShuffled()) {
+				for (int i = count - 1; i > 0; i--) {
+					int j = shuffleRandom.nextInt(i + 1);
+					Record r = window[i];
+					window[i] = window[j];
+					window[j] = r;
+				}
+			}
+
+			for (int i = 0; i < count; i++) {
+				Record r = window[i];
+				if (extensionType != null && r.extension != currentExtension) {
+					extensionData[0] = (byte) (r.extension >>> 8);
+					extensionData[1] = (byte) r.extension;
+					encode(0, extensionType, extensionData, 2, false);
+					currentExtension = r.extension;
+				}
+				encode(r.address, RecordType.DATA, r.data, r.length,
+						options.getFaultRate() > 0 && faultRandom.nextDouble() < options.getFaultRate());
+			}
+			count = 0;
+		}
+
+		void finish() throws IOException {
+			flushWindow();
+			encode(0, RecordType.END_OF_FILE, extensionData, 0, false);
+			if (recordsInLine > 0) {
+				put(lineTerminator, lineTerminator.length);
+			}
+
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		private void encode(int address, RecordType type, byte[] data, int length, boolean damaged)
+				throws IOException {
+			int sum = length + (address >>> 8) + address + type.getOrdinal();
+			for (int i = 0; i < length; i++) {
+				sum += data[i];
+			}
+
+			int p = 0;
+			encoded[p++] = ':';
+			p = putByte(p, length);
+			p = putByte(p, address >>> 8);
+			p = putByte(p, address);
+			p = putByte(p, type.getOrdinal());
+			for (int i = 0; i < length; i++) {
+				p = putByte(p, data[i]);
+			}
+			p = putByte(p, -sum);
+
+			if (damaged) {
+				damage(p);
+			}
+
+			put(encoded, p);
+			if (++recordsInLine == options.getRecordsPerLine()) {
+				put(lineTerminator, lineTerminator.length);
+				recordsInLine = 0;
+			}
+		}
+
+		private void damage(int p) {
+			faults++;
+			switch (faultRandom.nextInt(3)) {
+			case 0:
+				// wrong checksum
+				encoded[p - 1] = HEX[(Character.digit(encoded[p - 1], 16) + 1) & 0x0F];
+				break;
+			case 1:
+				// wrong byte count
+				encoded[2] = HEX[(Character.digit(encoded[2], 16) + 1) & 0x0F];
+				break;
+			default:
+				// invalid character in address, type or data
+				encoded[3 + faultRandom.nextInt(p - 5)] = 'X';
+				break;
+			}
+		}
+
+		private int putByte(int p, int v) {
+			encoded[p] = HEX[v >>> 4 & 0x0F];
+			encoded[p + 1] = HEX[v & 0x0F];
+			return p + 2;
+		}
+
+		private void put(byte[] bs, int length) throws IOException {
+			if (buffer.remaining() < length) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			}
+			buffer.put(bs, 0, length);
+		}
+	}
+
+	/**
+	 * Command line interface, see {@link #usage()}.
+	 */
+	public static void main(String[] args) throws IOException {
+		GeneratorOptions options = new GeneratorOptions();
+		Path output = null;
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("--")) {
+				output = Paths.get(arg);
+				continue;
+			}
+
+			if (arg.equals("--shuffle")) {
+				options.setShuffled(true);
+				continue;
+			}
+
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value of " + arg + "\n" + usage());
+			}
+
+			String value = args[++i];
+			switch (arg) {
+			case "--seed":
+				options.setSeed(Long.parseLong(value));
+				break;
+			case "--format":
+				options.setFormat(HexFormat.valueOf(value));
+				break;
+			case "--size":
+				options.setSize(parseSize(value));
+				break;
+			case "--start":
+				options.setStartAddress(Long.decode(value));
+				break;
+			case "--record-length":
+				int separator = value.indexOf('-');
+				short minimum = Short.parseShort(separator < 0 ? value : value.substring(0, separator));
+				short maximum = separator < 0 ? minimum : Short.parseShort(value.substring(separator + 1));
+				options.setRecordLength(minimum, maximum);
+				break;
+			case "--gap-density":
+				options.setGapDensity(Double.parseDouble(value));
+				break;
+			case "--max-gap":
+				options.setMaximumGapLength((int) parseSize(value));
+				break;
+			case "--shuffle-window":
+				options.setShuffled(true);
+				options.setShuffleWindow(Integer.parseInt(value));
+				break;
+			case "--records-per-line":
+				options.setRecordsPerLine(Integer.parseInt(value));
+				break;
+			case "--fault-rate":
+				options.setFaultRate(Double.parseDouble(value));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + arg + "\n" + usage());
+			}
+		}
+
+		if (output == null) {
+			throw new IllegalArgumentException("Missing output file\n" + usage());
+		}
+
+		long faults = new HexImageGenerator(options).generate(output);
+		if (faults > 0) {
+			System.out.println(faults + " damaged records");
+		}
+	}
+
+	private static long parseSize(String value) {
+		long factor = 1;
+		switch (Character.toUpperCase(value.charAt(value.length() - 1))) {
+		case 'K':
+			factor = 1L << 10;
+			break;
+		case 'M':
+			factor = 1L << 20;
+			break;
+		case 'G':
+			factor = 1L << 30;
+			break;
+		}
+		return factor == 1 ? Long.parseLong(value) : Long.parseLong(value.substring(0, value.length() - 1)) * factor;
+	}
+
+	private static String usage() {
+		return "Usage: HexImageGenerator [options] <output file>\n" //
+				+ "  --seed <n>                seed of the random data (0)\n" //
+				+ "  --format <format>         I8HEX, I16HEX or I32HEX (I32HEX)\n" //
+				+ "  --size <n>[K|M|G]         number of data bytes (1M)\n" //
+				+ "  --start <address>         address of the first byte (0)\n" //
+				+ "  --record-length <min-max> data bytes per record (16-32)\n" //
+				+ "  --gap-density <p>         probability of a gap after a record (0)\n" //
+				+ "  --max-gap <n>[K|M|G]      maximum gap length (256)\n" //
+				+ "  --shuffle                 write the records in random order\n" //
+				+ "  --shuffle-window <n>      records shuffled together (4096)\n" //
+				+ "  --records-per-line <n>    records written on one line (1)\n" //
+				+ "  --fault-rate <p>          probability of a damaged record (0)";
+	}
+}
@@ -0,0 +1,182 @@
+package net.alenzen.intelHex;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, fully indexed view on the data of an {@link IntelHexFile} at the
+ * time {@link IntelHexFile#snapshot()} has been called. All methods are
+ * thread-safe without locking; the read methods which take a target array do
+ * not allocate.
+ *
+ * Later modifications of the file are not visible in the view. A new snapshot
+ * shares the data copies of all records which have not been modified since
+ * the previous snapshot, so publishing a new version after a small patch only
+ * copies the patched records.
+ */
+public final class HexImageView {
+	private static final HexImageView EMPTY = new HexImageView(new long[0], new long[0], new byte[0][], new int[0],
+			new HexFileLine[0], new int[0]);
+
+	private final long[] starts;
+	private final long[] ends;
+	private final byte[][] data;
+	private final int[] offsets;
+
+	// records the data has been copied from; only used to share copies
+	private final HexFileLine[] sources;
+	private final int[] sourceVersions;
+
+	private HexImageView(long[] starts, long[] ends, byte[][] data, int[] offsets, HexFileLine[] sources,
+			int[] sourceVersions) {
+		this.starts = starts;
+		this.ends = ends;
+		this.data = data;
+		this.offsets = offsets;
+		this.sources = sources;
+		this.sourceVersions = sourceVersions;
+	}
+
+	/**
+	 * Creates a view of the segments of the index. Copies of the previous view
+	 * are reused for records which have not been modified since.
+	 */
+	static HexImageView of(HexLineIndex index, HexImageView previous) {
+		if (previous == null) {
+			previous = EMPTY;
+		}
+
+		int n = index.size();
+		long[] starts = new long[n];
+		long[] ends = new long[n];
+		byte[][] data = new byte[n][];
+		int[] offsets = new int[n];
+		HexFileLine[] sources = new HexFileLine[n];
+		int[] sourceVersions = new int[n];
+
+		int p = 0;
+		for (int i = 0; i < n; i++) {
+			HexFileLine line = index.getLine(i);
+			starts[i] = index.getStartAddress(i);
+			ends[i] = index.getEndAddress(i);
+			offsets[i] = (int) (starts[i] - line.getFullStartAddress());
+			sources[i] = line;
+			sourceVersions[i] = line.getVersion();
+
+			if (i > 0 && sources[i - 1] == line) {
+				// a record split by an overlapping one
+				data[i] = data[i - 1];
+				continue;
+			}
+
+			while (p < previous.starts.length && previous.ends[p] <= starts[i]) {
+				p++;
+			}
+			if (p < previous.starts.length && previous.sources[p] == line
+					&& previous.sourceVersions[p] == sourceVersions[i]) {
+				data[i] = previous.data[p];
+			} else {
+				data[i] = line.getData().clone();
+			}
+		}
+
+		return new HexImageView(starts, ends, data, offsets, sources, sourceVersions);
+	}
+
+	private int indexOf(long address) {
+		int lo = 0;
+		int hi = starts.length - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= address) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+
+		if (hi >= 0 && address < ends[hi]) {
+			return hi;
+		}
+		return -(hi + 1) - 1;
+	}
+
+	/**
+	 * @return true if the data has been defined for the given address
+	 */
+	public boolean isDefined(long address) {
+		return indexOf(address) >= 0;
+	}
+
+	/**
+	 * @return the byte at the given address or 0x00 if it is not defined
+	 */
+	public byte readByte(long address) {
+		int i = indexOf(address);
+		return i < 0 ? 0 : data[i][offsets[i] + (int) (address - starts[i])];
+	}
+
+	/**
+	 * Reads {@code numberOfBytes} bytes from the given {@code address}. Bytes
+	 * which are not defined are read as 0x00.
+	 */
+	public byte[] readBytes(long address, int numberOfBytes) {
+		if (numberOfBytes < 0) {
+			throw new IllegalArgumentException("Number of bytes needs to be positive!");
+		}
+
+		byte[] result = new byte[numberOfBytes];
+		readBytes(address, result, 0, numberOfBytes);
+		return result;
+	}
+
+	/**
+	 * Reads bytes into {@code target[offset, offset + length)}. Bytes which are
+	 * not defined are read as 0x00.
+	 */
+	public void readBytes(long address, byte[] target, int offset, int length) {
+		if (address < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		long end = address + length;
+		long position = address;
+		int i = indexOf(address);
+		for (i = i >= 0 ? i : -i - 1; i < starts.length && starts[i] < end; i++) {
+			long from = Math.max(address, starts[i]);
+			long to = Math.min(end, ends[i]);
+			if (from > position) {
+				Arrays.fill(target, offset + (int) (position - address), offset + (int) (from - address),
+						(byte) 0);
+			}
+			System.arraycopy(data[i], offsets[i] + (int) (from - starts[i]), target, offset + (int) (from - address),
+					(int) (to - from));
+			position = to;
+		}
+
+		if (end > position) {
+			Arrays.fill(target, offset + (int) (position - address), offset + length, (byte) 0);
+		}
+	}
+
+	/**
+	 * @return all address ranges which are defined
+	 */
+	public AddressRangeSet getDefinedRanges() {
+		AddressRangeSet.Builder builder = new AddressRangeSet.Builder();
+		for (int i = 0; i < starts.length; i++) {
+			builder.add(starts[i], ends[i]);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return number of defined bytes
+	 */
+	public long getDefinedByteCount() {
+		long count = 0;
+		for (int i = 0; i < starts.length; i++) {
+			count += ends[i] - starts[i];
+		}
+		return count;
+	}
+}
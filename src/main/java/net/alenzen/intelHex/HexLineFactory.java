@@ -0,0 +1,161 @@
+package net.alenzen.intelHex;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits consecutive chunks of data with ascending addresses into records.
+ * Address extension records are created only when the data leaves the 64 KiB
+ * window of the current extension. No record is longer than the maximum line
+ * byte count or crosses the end of an extension window. Adjacent chunks are
+ * coalesced into full records.
+ *
+ * @param <E> exception thrown by the sink
+ */
+class HexLineFactory<E extends Exception> {
+	private static final long WINDOW_SIZE = HexFileLine.ADDRESS_MAX + 1L;
+
+	/**
+	 * Receives the records of a {@link HexLineFactory} in file order.
+	 */
+	interface Sink<E extends Exception> {
+		/**
+		 * @param address 16 bit address field of the data record
+		 */
+		void data(int address, byte[] data, int offset, int length) throws E;
+
+		/**
+		 * @param type      type of the address extension record
+		 * @param extension 16 bit value of the address extension record
+		 */
+		void extension(RecordType type, int extension) throws E;
+	}
+
+	private final RecordType extensionType;
+	private final short maximumLineByteCount;
+	private final Sink<E> sink;
+	private final byte[] pending;
+	private int pendingLength = 0;
+	private long pendingAddress = 0;
+	private long extensionOffset = 0;
+	private long nextAddress = 0;
+
+	/**
+	 * @param format               determines the type of the address extension
+	 *                             records
+	 * @param maximumLineByteCount maximum number of data bytes per record
+	 * @param sink                 receives the created records in file order
+	 */
+	HexLineFactory(HexFormat format, short maximumLineByteCount, Sink<E> sink) {
+		if (maximumLineByteCount <= 0 || maximumLineByteCount > IntelHexFile.BYTE_COUNT_MAX) {
+			throw new IllegalArgumentException("Maximum line byte count needs to be between 1 and 255!");
+		}
+
+		this.extensionType = format.getAddressExtension();
+		this.maximumLineByteCount = maximumLineByteCount;
+		this.pending = new byte[maximumLineByteCount];
+		this.sink = sink;
+	}
+
+	/**
+	 * Creates the records for {@code data[offset, offset + length)} starting at
+	 * {@code address}. The address must not be lower than the end of the
+	 * previously added data. Data which directly follows the previous data is
+	 * appended to the last record until it is full, therefore {@link #finish()}
+	 * needs to be called after the last chunk.
+	 */
+	void add(long address, byte[] data, int offset, int length) throws E {
+		if (address < nextAddress) {
+			throw new IllegalArgumentException(
+					String.format("Address 0x%X is lower than the end of the previous data 0x%X!", address,
+							nextAddress));
+		}
+
+		if (pendingLength > 0 && address != nextAddress) {
+			finish();
+		}
+
+		int end = offset + length;
+		while (offset < end) {
+			if (pendingLength == 0) {
+				pendingAddress = address;
+				if (address - extensionOffset > HexFileLine.ADDRESS_MAX) {
+					extend(address);
+				}
+			}
+
+			long windowEnd = extensionOffset + WINDOW_SIZE;
+			int l = (int) Math.min(Math.min(end - offset, maximumLineByteCount - pendingLength), windowEnd - address);
+			boolean complete = pendingLength + l == maximumLineByteCount || address + l == windowEnd;
+
+			if (pendingLength == 0 && complete) {
+				// full record, no need to buffer
+				sink.data((int) (address - extensionOffset), data, offset, l);
+			} else {
+				System.arraycopy(data, offset, pending, pendingLength, l);
+				pendingLength += l;
+				if (complete) {
+					finish();
+				}
+			}
+
+			offset += l;
+			address += l;
+		}
+
+		nextAddress = address;
+	}
+
+	/**
+	 * Creates the record for the data which has been buffered to be coalesced
+	 * with the following chunk.
+	 */
+	void finish() throws E {
+		if (pendingLength > 0) {
+			sink.data((int) (pendingAddress - extensionOffset), pending, 0, pendingLength);
+			pendingLength = 0;
+		}
+	}
+
+	private void extend(long address) throws E {
+		if (extensionType == null) {
+			throw new IllegalArgumentException(
+					String.format("Address 0x%X cannot be represented without address extension!", address));
+		}
+
+		int extension = AddressExtensionUtils.extensionOffsetFromFullAddress(extensionType, address);
+		if (extension > HexFileLine.ADDRESS_MAX) {
+			throw new IllegalArgumentException(
+					String.format("Address 0x%X exceeds the address range of %s!", address, extensionType.name()));
+		}
+
+		extensionOffset = AddressExtensionUtils.extensionOffset(extensionType,
+				ByteUtils.shortToByteArray((short) extension), 0, 2);
+		sink.extension(extensionType, extension);
+	}
+
+	/**
+	 * Creates a factory which passes the records as {@link HexFileLine}s to the
+	 * consumer. The data records are linked to their address extension.
+	 */
+	static HexLineFactory<RuntimeException> toLines(HexFormat format, short maximumLineByteCount,
+			Consumer<HexFileLine> lines) {
+		return new HexLineFactory<RuntimeException>(format, maximumLineByteCount,
+				new Sink<RuntimeException>() {
+					private HexFileLine addressExtension = null;
+
+					@Override
+					public void data(int address, byte[] data, int offset, int length) {
+						lines.accept(new HexFileLine(address, RecordType.DATA,
+								Arrays.copyOfRange(data, offset, offset + length), addressExtension));
+					}
+
+					@Override
+					public void extension(RecordType type, int extension) {
+						addressExtension = new HexFileLine(0, type, ByteUtils.shortToByteArray((short) extension),
+								null);
+						lines.accept(addressExtension);
+					}
+				});
+	}
+}
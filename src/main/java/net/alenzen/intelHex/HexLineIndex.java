@@ -3,221 +3,678 @@ package net.alenzen.intelHex;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Address index over the data records of a hex file.
+ *
+ * The index consists of disjoint address segments which are stored in sorted
+ * primitive arrays: the start address, the exclusive end address and the
+ * record which defines the bytes of the segment. Lookups use a binary search
+ * on the start addresses without boxing.
+ *
+ * If data records overlap, the record which comes first in the record list
+ * defines the overlapping bytes. In that case a record can be split into
+ * multiple segments, or not be part of the index at all.
+ *
+ * The index of an {@link IntelHexFile} is updated incrementally whenever data
+ * records are added, removed or moved. Changes which cannot be applied
+ * directly, e.g. of records which overlap others or of address extension
+ * records, mark the affected address ranges as dirty. Only these ranges are
+ * swept again on next use.
+ */
 public class HexLineIndex {
-	private List<HexFileLine> sortedDataLines = null;
-	private List<Long> hexlineIndex = null;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] starts;
+	private long[] ends;
+	private HexFileLine[] lines;
+	private int size = 0;
+	private boolean overlapping = false;
 	private IntelHexFile hf;
+	// ranges whose segments are outdated
+	private AddressRangeSet dirty = AddressRangeSet.EMPTY;
 
 	public HexLineIndex(IntelHexFile intelHexFile) {
+		this(intelHexFile, null);
+	}
+
+	/**
+	 * @param pool sorts the records in parallel if not null
+	 */
+	HexLineIndex(IntelHexFile intelHexFile, ForkJoinPool pool) {
+		HexMetricsListener metrics = HexMetrics.getListener();
+		long start = metrics == null ? 0 : System.nanoTime();
 		this.hf = intelHexFile;
-		setupIndex();
+		setupIndex(pool);
+
+		if (metrics != null) {
+			metrics.indexBuilt(size, System.nanoTime() - start);
+		}
 	}
 
-	private void setupIndex() {
-		sortedDataLines = hf.getRecords().stream().filter(l -> l.getType() == RecordType.DATA)
-				.sorted((l1, l2) -> Long.compare(l1.getFullStartAddress(), l2.getFullStartAddress()))
-				.collect(Collectors.toList());
-		buildIndexRanges();
+	private void setupIndex(ForkJoinPool pool) {
+		List<HexFileLine> records = hf.getRecords();
+		HexFileLine[] dataLines = new HexFileLine[records.size()];
+		long[] dataStarts = new long[records.size()];
+		int n = 0;
+		for (HexFileLine l : records) {
+			if (l.getType() == RecordType.DATA && l.getData().length > 0) {
+				dataLines[n] = l;
+				dataStarts[n] = l.getFullStartAddress();
+				n++;
+			}
+		}
+
+		// stable sort of the record positions by start address
+		int[] order = new int[n];
+		boolean sorted = true;
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			sorted &= i == 0 || dataStarts[i - 1] <= dataStarts[i];
+		}
+		if (!sorted) {
+			sortByKey(order, dataStarts, pool);
+		}
+
+		allocate(Math.max(INITIAL_CAPACITY, n));
+		long previousEnd = Long.MIN_VALUE;
+		for (int i = 0; i < n && !overlapping; i++) {
+			long start = dataStarts[order[i]];
+			overlapping = start < previousEnd;
+			previousEnd = start + dataLines[order[i]].getData().length;
+		}
+
+		if (overlapping) {
+			buildOverlappingSegments(order, dataStarts, dataLines, this::appendMerged);
+		} else {
+			for (int i = 0; i < n; i++) {
+				HexFileLine l = dataLines[order[i]];
+				appendSegment(dataStarts[order[i]], dataStarts[order[i]] + l.getData().length, l);
+			}
+		}
 	}
 
 	/**
-	 * sortedDataLines needs to be sorted
+	 * Sweeps over the start addresses and assigns every address to the active
+	 * record with the lowest position in the record list. {@code dataLines} need
+	 * to be in record list order.
 	 */
-	private void buildIndexRanges() {
-		List<Long> ranges = new ArrayList<Long>(getSortedDataLines().size() * 2);
-		for (HexFileLine l : getSortedDataLines()) {
-			long start = l.getFullStartAddress();
-			long end = start + l.getLength() - 1;
-			ranges.add(start);
-			ranges.add(end);
+	private static void buildOverlappingSegments(int[] order, long[] dataStarts, HexFileLine[] dataLines,
+			SegmentSink sink) {
+		PriorityQueue<Integer> active = new PriorityQueue<Integer>();
+		int next = 0;
+		long position = 0;
+		while (next < order.length || !active.isEmpty()) {
+			if (active.isEmpty()) {
+				position = dataStarts[order[next]];
+			}
+
+			while (next < order.length && dataStarts[order[next]] <= position) {
+				active.add(order[next++]);
+			}
+
+			while (!active.isEmpty() && endOf(active.peek(), dataStarts, dataLines) <= position) {
+				active.poll();
+			}
+
+			if (active.isEmpty()) {
+				continue;
+			}
+
+			int winner = active.peek();
+			long segmentEnd = endOf(winner, dataStarts, dataLines);
+			if (next < order.length) {
+				segmentEnd = Math.min(segmentEnd, dataStarts[order[next]]);
+			}
+
+			sink.add(position, segmentEnd, dataLines[winner]);
+			position = segmentEnd;
 		}
-		hexlineIndex = ranges;
 	}
 
-	private void addLineToIndexRanges(int sortedIndex, HexFileLine line) {
-		int rangeIndex = sortedIndex * 2;
-		long newLineStart = line.getFullStartAddress();
-		long newLineEnd = newLineStart + line.getLength() - 1;
+	private interface SegmentSink {
+		void add(long start, long end, HexFileLine line);
+	}
 
-		hexlineIndex.add(rangeIndex, newLineStart);
-		hexlineIndex.add(rangeIndex + 1, newLineEnd);
+	/**
+	 * Appends the segment or extends the last segment if it belongs to the same
+	 * line and ends at the start of the new one.
+	 */
+	private void appendMerged(long start, long end, HexFileLine line) {
+		if (size > 0 && lines[size - 1] == line && ends[size - 1] == start) {
+			ends[size - 1] = end;
+		} else {
+			appendSegment(start, end, line);
+		}
 	}
 
-	public Optional<HexFileLine> findLineByAddress(long address) {
-		int result = Collections.binarySearch(hexlineIndex, address);
+	private static long endOf(int i, long[] dataStarts, HexFileLine[] dataLines) {
+		return dataStarts[i] + dataLines[i].getData().length;
+	}
 
-		if (result >= 0) {
-			return Optional.of(getSortedDataLines().get(result / 2));
+	/**
+	 * Stable sort of {@code order} by {@code keys[order[i]]}. Keys of 32 bits are
+	 * packed together with the position into a single primitive array.
+	 */
+	private static void sortByKey(int[] order, long[] keys, ForkJoinPool pool) {
+		long[] packed = new long[order.length];
+		for (int i = 0; i < order.length; i++) {
+			if (keys[i] >>> 32 != 0) {
+				mergeSortByKey(order, keys);
+				return;
+			}
+			packed[i] = keys[i] << 31 | i;
 		}
 
-		result *= -1;
-		if (result % 2 != 0) {
-			return Optional.empty();
+		if (pool != null) {
+			pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(packed)));
+		} else {
+			Arrays.sort(packed);
 		}
 
-		return Optional.of(getSortedDataLines().get((result - 1) / 2));
+		for (int i = 0; i < order.length; i++) {
+			order[i] = (int) (packed[i] & Integer.MAX_VALUE);
+		}
 	}
 
-	public int createLineInGap(long address, int offset, byte[] bs) {
-		int result = Collections.binarySearch(hexlineIndex, address);
+	/**
+	 * Stable merge sort of {@code order} by {@code keys[order[i]]}.
+	 */
+	private static void mergeSortByKey(int[] order, long[] keys) {
+		int[] buffer = new int[order.length];
+		for (int width = 1; width < order.length; width *= 2) {
+			for (int lo = 0; lo < order.length; lo += 2 * width) {
+				int mid = Math.min(lo + width, order.length);
+				int hi = Math.min(lo + 2 * width, order.length);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi) {
+					buffer[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+				}
+				while (i < mid) {
+					buffer[k++] = order[i++];
+				}
+				while (j < hi) {
+					buffer[k++] = order[j++];
+				}
+			}
+			System.arraycopy(buffer, 0, order, 0, order.length);
+		}
+	}
+
+	private void removeSegment(int index) {
+		int moved = size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(starts, index + 1, starts, index, moved);
+			System.arraycopy(ends, index + 1, ends, index, moved);
+			System.arraycopy(lines, index + 1, lines, index, moved);
+		}
+		size--;
+		lines[size] = null;
+	}
+
+	private void allocate(int capacity) {
+		starts = new long[capacity];
+		ends = new long[capacity];
+		lines = new HexFileLine[capacity];
+	}
 
-		if (result >= 0 || result % 2 == 0) {
-			throw new InvalidParameterException("Address is actually part of an existing line!");
+	private void ensureCapacity(int capacity) {
+		if (capacity <= starts.length) {
+			return;
 		}
 
-		result *= -1;
+		int newCapacity = Math.max(capacity, starts.length + (starts.length >> 1));
+		starts = Arrays.copyOf(starts, newCapacity);
+		ends = Arrays.copyOf(ends, newCapacity);
+		lines = Arrays.copyOf(lines, newCapacity);
+	}
+
+	private void appendSegment(long start, long end, HexFileLine line) {
+		insertSegment(size, start, end, line);
+	}
 
-		HexFileLine lower = null;
-		if (result > 2) {
-			lower = getSortedDataLines().get((result - 3) / 2);
+	private void insertSegment(int index, long start, long end, HexFileLine line) {
+		ensureCapacity(size + 1);
+		int moved = size - index;
+		if (moved > 0) {
+			System.arraycopy(starts, index, starts, index + 1, moved);
+			System.arraycopy(ends, index, ends, index + 1, moved);
+			System.arraycopy(lines, index, lines, index + 1, moved);
+		}
+		starts[index] = start;
+		ends[index] = end;
+		lines[index] = line;
+		size++;
+	}
+
+	/**
+	 * Searches the segment which contains the given address.
+	 * 
+	 * @return index of the segment containing the address; otherwise
+	 *         {@code (-(insertion point) - 1)} where the insertion point is the
+	 *         index of the first segment after the address
+	 */
+	public int indexOf(long address) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= address) {
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
 		}
 
-		HexFileLine upper = null;
-		if (result < hexlineIndex.size()) {
-			upper = getSortedDataLines().get((result - 1) / 2);
+		// hi is the last segment starting at or before address
+		if (hi >= 0 && address < ends[hi]) {
+			return hi;
 		}
+		return -(hi + 1) - 1;
+	}
 
-		assert lower == null || !lower.containsAddress(address);
-		assert upper == null || !upper.containsAddress(address);
+	/**
+	 * @return index of the first segment which contains the address or starts
+	 *         after it
+	 */
+	public int ceilingIndexOf(long address) {
+		int i = indexOf(address);
+		return i >= 0 ? i : -i - 1;
+	}
 
-		long gapSize = determineGapSize(address, lower, upper);
+	/**
+	 * @return number of segments
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return first address of the segment
+	 */
+	public long getStartAddress(int segment) {
+		return starts[segment];
+	}
 
-		int writtenBytes = 0;
-		// length should not be larger than the remaining bytes
-		int length = (int) Math.min(bs.length - offset, gapSize);
-		// determine how many records need to be created
-		long numberOfLines = determineNumberOfLines(length);
+	/**
+	 * @return address after the last byte of the segment
+	 */
+	public long getEndAddress(int segment) {
+		return ends[segment];
+	}
 
-		for (int i = 0; i < numberOfLines; i++) {
-			HexFileLine newLine = createAndInsertNewLine(lower, upper, address + writtenBytes, bs, offset, length);
-			int bytesWritten = newLine.getLength();
-			writtenBytes += bytesWritten;
-			offset += bytesWritten;
+	/**
+	 * @return the record which defines the bytes of the segment
+	 */
+	public HexFileLine getLine(int segment) {
+		return lines[segment];
+	}
 
-			lower = newLine;
-			gapSize = determineGapSize(address + writtenBytes, lower, upper);
-			length = (int) Math.min(bs.length - offset, gapSize);
-			numberOfLines = determineNumberOfLines(length);
+	/**
+	 * Finds the record which defines the byte at the given address.
+	 */
+	public Optional<HexFileLine> findLineByAddress(long address) {
+		int i = indexOf(address);
+		if (i < 0) {
+			return Optional.empty();
 		}
 
+		return Optional.of(lines[i]);
+	}
+
+	/**
+	 * Creates the records for the bytes of {@code bs} starting at
+	 * {@code offset} which fit into the gap at {@code address} and inserts them
+	 * into the record list and this index.
+	 *
+	 * @return number of bytes written
+	 * @see GapFill
+	 */
+	public int createLineInGap(long address, int offset, byte[] bs) {
+		GapFill fill = new GapFill();
+		int writtenBytes = fill.add(address, offset, bs);
+		fill.apply();
 		return writtenBytes;
 	}
 
-	private long determineNumberOfLines(int length) {
-		if (length % hf.getMaximumLineByteCount() == 0) {
-			return length / hf.getMaximumLineByteCount();
+	/**
+	 * Collects the records for the gaps of a single write. The gaps are looked
+	 * up in the unchanged index; {@link #apply()} then inserts all records into
+	 * the record list and the segments in a single pass each. The gaps need to
+	 * be added in ascending address order and the index must not change before
+	 * the records are applied.
+	 */
+	class GapFill {
+		// new records by the line they follow in the record list, null for the beginning
+		private final Map<HexFileLine, List<HexFileLine>> inserts = new IdentityHashMap<HexFileLine, List<HexFileLine>>();
+		// new segments and the index of the old segment they are inserted before
+		private int[] positions = new int[INITIAL_CAPACITY];
+		private long[] newStarts = new long[INITIAL_CAPACITY];
+		private HexFileLine[] newLines = new HexFileLine[INITIAL_CAPACITY];
+		private int count = 0;
+		private RecordType extensionType;
+
+		/**
+		 * Creates the records for the bytes of {@code bs} starting at
+		 * {@code offset} which fit into the gap at {@code address}.
+		 *
+		 * @return number of bytes written
+		 */
+		int add(long address, int offset, byte[] bs) {
+			int result = indexOf(address);
+
+			if (result >= 0) {
+				throw new InvalidParameterException("Address is actually part of an existing line!");
+			}
+
+			int upperIndex = -result - 1;
+			HexFileLine lower = upperIndex > 0 ? lines[upperIndex - 1] : null;
+			HexFileLine upper = upperIndex < size ? lines[upperIndex] : null;
+			long gapEnd = upper == null ? Long.MAX_VALUE : starts[upperIndex];
+
+			// length should not be larger than the remaining bytes
+			int length = (int) Math.min(bs.length - offset, gapEnd - address);
+			int maximumLineByteCount = hf.getMaximumLineByteCount();
+			List<HexFileLine> current = linesBehind(lower);
+
+			HexFileLine predecessor = lower;
+			int writtenBytes = 0;
+			while (writtenBytes < length) {
+				long startAddress = address + writtenBytes;
+				int l = Math.min(length - writtenBytes, maximumLineByteCount);
+				byte[] slice = Arrays.copyOfRange(bs, offset + writtenBytes, offset + writtenBytes + l);
+
+				HexFileLine addressExtension;
+				if (predecessor == null) {
+					addressExtension = null;
+					if (startAddress > HexFileLine.ADDRESS_MAX) {
+						addressExtension = createAddressExtension(startAddress);
+						current.add(addressExtension);
+					}
+				} else if (startAddress - predecessor.getExtendedAddressOffset() > HexFileLine.ADDRESS_MAX) {
+					if (upper == null || startAddress - upper.getExtendedAddressOffset() > HexFileLine.ADDRESS_MAX
+							|| startAddress - upper.getExtendedAddressOffset() < 0) {
+						addressExtension = createAddressExtension(startAddress);
+						current.add(addressExtension);
+					} else {
+						// continue behind the extension of the following line
+						addressExtension = upper.getAddressExtension();
+						current = linesBehind(addressExtension);
+					}
+				} else {
+					addressExtension = predecessor.getAddressExtension();
+				}
+
+				long extensionOffset = addressExtension == null ? 0 : addressExtension.getExtendedAddressOffset();
+				HexFileLine line = new HexFileLine((int) (startAddress - extensionOffset), RecordType.DATA, slice,
+						addressExtension);
+				current.add(line);
+				addSegment(upperIndex, startAddress, line);
+
+				predecessor = line;
+				writtenBytes += l;
+			}
+
+			return writtenBytes;
+		}
+
+		private List<HexFileLine> linesBehind(HexFileLine anchor) {
+			return inserts.computeIfAbsent(anchor, k -> new ArrayList<HexFileLine>());
+		}
+
+		private HexFileLine createAddressExtension(long startAddress) {
+			if (extensionType == null) {
+				extensionType = determineAddressExtensionType();
+			}
+			return createNewAddressExtension(extensionType, startAddress);
+		}
+
+		private void addSegment(int position, long start, HexFileLine line) {
+			if (count == positions.length) {
+				positions = Arrays.copyOf(positions, count * 2);
+				newStarts = Arrays.copyOf(newStarts, count * 2);
+				newLines = Arrays.copyOf(newLines, count * 2);
+			}
+			positions[count] = position;
+			newStarts[count] = start;
+			newLines[count] = line;
+			count++;
 		}
 
-		return (length / hf.getMaximumLineByteCount()) + 1;
+		/**
+		 * Inserts the collected records behind their predecessors in the record
+		 * list and merges their segments into the index, both in a single pass.
+		 */
+		void apply() {
+			if (count == 0) {
+				return;
+			}
+
+			hf.getRecordList().insertBehind(inserts);
+
+			// merge from the end, so that every old segment is moved at most once
+			ensureCapacity(size + count);
+			int end = size;
+			for (int j = count - 1; j >= 0; j--) {
+				int position = positions[j];
+				int moved = end - position;
+				if (moved > 0) {
+					System.arraycopy(starts, position, starts, position + j + 1, moved);
+					System.arraycopy(ends, position, ends, position + j + 1, moved);
+					System.arraycopy(lines, position, lines, position + j + 1, moved);
+					end = position;
+				}
+				starts[position + j] = newStarts[j];
+				ends[position + j] = newStarts[j] + newLines[j].getData().length;
+				lines[position + j] = newLines[j];
+			}
+			size += count;
+		}
 	}
 
 	/**
-	 * Determines the gap size between lower and upper. If lower is null the size is
-	 * equal to the full start address of upper. If upper is null the gap size is
-	 * equal to Long.MAX_VALUE.
-	 * 
-	 * @param address address where to start writing
-	 * 
-	 * @param lower
-	 * @param upper
-	 * @return Number of bytes between Math.max(lower, address) and upper. -1 in
-	 *         case lower and upper are null.
+	 * Adds a data line which has been added to the records. If the line overlaps
+	 * other data lines, its address range is marked as dirty instead.
 	 */
-	private long determineGapSize(long address, HexFileLine lower, HexFileLine upper) {
-		if (upper == null) {
-			return Long.MAX_VALUE;
+	void lineAdded(HexFileLine line) {
+		if (line.getType() != RecordType.DATA || line.getData().length == 0) {
+			return;
 		}
 
-		if (lower == null) {
-			return upper.getFullStartAddress();
+		long start = line.getFullStartAddress();
+		long end = start + line.getData().length;
+		if (dirty.intersects(start, end)) {
+			markDirty(start, end);
+			return;
 		}
 
-		long lowerEndAddress = lower.getFullStartAddress() + lower.getLength();
-		lowerEndAddress = Math.max(lowerEndAddress, address);
+		// the segments cover all data lines, so a line in a gap overlaps nothing
+		int i = ceilingIndexOf(start);
+		if (i < size && starts[i] < end) {
+			overlapping = true;
+			markDirty(start, end);
+			return;
+		}
 
-		return upper.getFullStartAddress() - lowerEndAddress;
+		insertSegment(i, start, end, line);
 	}
 
 	/**
-	 * Preserves the index
+	 * Removes a data line which has been removed from the records or changed. If
+	 * other data lines may become visible, the address range is marked as dirty
+	 * instead.
 	 * 
-	 * @param predecessor
-	 * @param successor
-	 * @param startAddress
-	 * @param bs
-	 * @param offset
-	 * @param maxLength
-	 * @return
-	 */
-	private HexFileLine createAndInsertNewLine(HexFileLine predecessor, HexFileLine successor, long startAddress,
-			byte[] bs, int offset, int maxLength) {
-		int l = Math.min(maxLength, hf.getMaximumLineByteCount());
-		l = Math.min(l, bs.length - offset);
-
-		byte[] slice = Arrays.copyOfRange(bs, offset, offset + l);
-
-		int address = 0;
-		HexFileLine addressExtension = null;
-		if (predecessor == null) {
-			if (startAddress > HexFileLine.ADDRESS_MAX) {
-				predecessor = createNewAddressExtension(startAddress);
-				hf.getRecords().add(0, predecessor);
-				addressExtension = predecessor;
-				address = (int) (startAddress - predecessor.getExtendedAddressOffset());
-			} else {
-				address = (int) startAddress;
-				addressExtension = null;
-			}
-		} else {
-			if (startAddress - predecessor.getExtendedAddressOffset() > HexFileLine.ADDRESS_MAX) {
-				if (successor == null || startAddress - successor.getExtendedAddressOffset() > HexFileLine.ADDRESS_MAX
-						|| startAddress - successor.getExtendedAddressOffset() < 0) {
-					addressExtension = createNewAddressExtension(startAddress);
-					hf.getRecords().add(hf.getRecords().indexOf(predecessor) + 1, addressExtension);
-				} else {
-					addressExtension = successor.getAddressExtension();
-				}
-				predecessor = addressExtension;
-				address = (int) (startAddress - addressExtension.getExtendedAddressOffset());
-			} else {
-				address = (int) (startAddress - predecessor.getExtendedAddressOffset());
-				addressExtension = predecessor.getAddressExtension();
-			}
+	 * @param start  full start address of the line before it has been changed
+	 * @param length length of the data before it has been changed
+	 * @param type   type of the line before it has been changed
+	 */
+	void lineRemoved(HexFileLine line, long start, int length, RecordType type) {
+		if (type != RecordType.DATA || length == 0) {
+			return;
 		}
 
-		HexFileLine line = new HexFileLine(address, RecordType.DATA, slice, addressExtension);
-		hf.getRecords().add(hf.getRecords().indexOf(predecessor) + 1, line);
-		addLineToSortedList(line);
-		return line;
+		long end = start + length;
+		int i = overlapping || dirty.intersects(start, end) ? -1 : indexOf(start);
+		if (i < 0 || lines[i] != line || ends[i] != end) {
+			markDirty(start, end);
+			return;
+		}
+
+		removeSegment(i);
 	}
 
-	private void addLineToSortedList(HexFileLine line) {
-		if (line.getType() != RecordType.DATA)
+	/**
+	 * Marks the segments within {@code [from, to)} as outdated. They are swept
+	 * again by {@link #sweepDirtyRanges()}.
+	 */
+	void markDirty(long from, long to) {
+		dirty = dirty.with(Math.max(0, from), to);
+	}
+
+	boolean isDirty() {
+		return !dirty.isEmpty();
+	}
+
+	/**
+	 * Sweeps the dirty ranges again. Only the data lines which intersect a dirty
+	 * range are sorted; the segments outside of the dirty ranges are kept.
+	 */
+	void sweepDirtyRanges() {
+		if (dirty.isEmpty()) {
 			return;
-		int sortedIndex = getNewIndexByLine(line);
-		sortedDataLines.add(sortedIndex, line);
-		addLineToIndexRanges(sortedIndex, line);
+		}
+
+		AddressRangeSet ranges = dirty;
+		dirty = AddressRangeSet.EMPTY;
+
+		// the data lines within the ranges in record list order
+		HexFileLine[] dataLines = new HexFileLine[INITIAL_CAPACITY];
+		long[] dataStarts = new long[INITIAL_CAPACITY];
+		int n = 0;
+		for (HexFileLine l : hf.getRecords()) {
+			if (l.getType() == RecordType.DATA && l.getData().length > 0) {
+				long start = l.getFullStartAddress();
+				if (ranges.intersects(start, start + l.getData().length)) {
+					if (n == dataLines.length) {
+						dataLines = Arrays.copyOf(dataLines, n * 2);
+						dataStarts = Arrays.copyOf(dataStarts, n * 2);
+					}
+					dataLines[n] = l;
+					dataStarts[n] = start;
+					n++;
+				}
+			}
+		}
+		dataLines = Arrays.copyOf(dataLines, n);
+		dataStarts = Arrays.copyOf(dataStarts, n);
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		sortByKey(order, dataStarts, null);
+		long previousEnd = Long.MIN_VALUE;
+		for (int i = 0; i < n && !overlapping; i++) {
+			overlapping = dataStarts[order[i]] < previousEnd;
+			previousEnd = dataStarts[order[i]] + dataLines[order[i]].getData().length;
+		}
+
+		RangeClipper swept = new RangeClipper(ranges);
+		buildOverlappingSegments(order, dataStarts, dataLines, swept);
+
+		// merge the kept parts of the old segments with the swept ones
+		long[] oldStarts = starts;
+		long[] oldEnds = ends;
+		HexFileLine[] oldLines = lines;
+		int oldSize = size;
+		allocate(Math.max(INITIAL_CAPACITY, oldSize + swept.size + ranges.size()));
+		size = 0;
+
+		int next = 0;
+		int r = 0;
+		for (int i = 0; i < oldSize; i++) {
+			long start = oldStarts[i];
+			long end = oldEnds[i];
+			while (r < ranges.size() && ranges.getEnd(r) <= start) {
+				r++;
+			}
+
+			for (int k = r; start < end; k++) {
+				long pieceEnd = k < ranges.size() ? Math.min(end, ranges.getStart(k)) : end;
+				if (start < pieceEnd) {
+					next = appendSwept(swept, next, start);
+					appendMerged(start, pieceEnd, oldLines[i]);
+				}
+				start = k < ranges.size() ? Math.max(start, ranges.getEnd(k)) : end;
+			}
+		}
+		appendSwept(swept, next, Long.MAX_VALUE);
 	}
 
-	private int getNewIndexByLine(HexFileLine line) {
-		int result = Collections.binarySearch(hexlineIndex, line.getFullStartAddress());
+	/**
+	 * Appends the swept segments starting before {@code address}.
+	 * 
+	 * @return index of the next swept segment
+	 */
+	private int appendSwept(RangeClipper swept, int next, long address) {
+		while (next < swept.size && swept.starts[next] < address) {
+			appendMerged(swept.starts[next], swept.ends[next], swept.lines[next]);
+			next++;
+		}
+		return next;
+	}
 
-		if (result >= 0 || result % 2 == 0) {
-			throw new InvalidParameterException("Address is actually part of an existing line!");
+	/**
+	 * Collects the parts of the swept segments which are within the dirty
+	 * ranges.
+	 */
+	private static class RangeClipper implements SegmentSink {
+		private final AddressRangeSet ranges;
+		private long[] starts = new long[INITIAL_CAPACITY];
+		private long[] ends = new long[INITIAL_CAPACITY];
+		private HexFileLine[] lines = new HexFileLine[INITIAL_CAPACITY];
+		private int size = 0;
+		private int range = 0;
+
+		RangeClipper(AddressRangeSet ranges) {
+			this.ranges = ranges;
 		}
 
-		return ((result * -1) - 1) / 2;
+		@Override
+		public void add(long start, long end, HexFileLine line) {
+			while (range < ranges.size() && ranges.getEnd(range) <= start) {
+				range++;
+			}
+			for (int r = range; r < ranges.size() && ranges.getStart(r) < end; r++) {
+				long from = Math.max(start, ranges.getStart(r));
+				long to = Math.min(end, ranges.getEnd(r));
+				if (size > 0 && lines[size - 1] == line && ends[size - 1] == from) {
+					ends[size - 1] = to;
+					continue;
+				}
+
+				if (size == starts.length) {
+					starts = Arrays.copyOf(starts, size * 2);
+					ends = Arrays.copyOf(ends, size * 2);
+					lines = Arrays.copyOf(lines, size * 2);
+				}
+				starts[size] = from;
+				ends[size] = to;
+				lines[size] = line;
+				size++;
+			}
+		}
 	}
 
-	private HexFileLine createNewAddressExtension(long startAddress) {
+	private HexFileLine createNewAddressExtension(RecordType extensionType, long startAddress) {
 		HexFileLine predecessor;
-		// determine type of address extensions used; default to LINEAR
-		RecordType extensionType = determineAddressExtensionType();
 		// calculate address extension offset
 		int addressExtensionOffset = AddressExtensionUtils.extensionOffsetFromFullAddress(extensionType, startAddress);
 		assert addressExtensionOffset <= 0xFFFF;
@@ -230,6 +687,10 @@ public class HexLineIndex {
 		return predecessor;
 	}
 
+	/**
+	 * @return type of the address extensions used in the file; defaults to
+	 *         LINEAR
+	 */
 	private RecordType determineAddressExtensionType() {
 		Optional<HexFileLine> firstExtensionLine = hf.getRecords().stream()
 				.filter(l -> l.getType() == RecordType.EXTENDED_LINEAR_ADDRESS
@@ -242,7 +703,16 @@ public class HexLineIndex {
 		return RecordType.EXTENDED_LINEAR_ADDRESS;
 	}
 
+	/**
+	 * @return the records of all segments in address order
+	 */
 	public List<HexFileLine> getSortedDataLines() {
-		return sortedDataLines;
+		List<HexFileLine> result = new ArrayList<HexFileLine>(size);
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || lines[i - 1] != lines[i]) {
+				result.add(lines[i]);
+			}
+		}
+		return result;
 	}
 }
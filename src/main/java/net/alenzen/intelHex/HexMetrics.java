@@ -0,0 +1,49 @@
+package net.alenzen.intelHex;
+
+import java.util.Optional;
+
+/**
+ * Global registration of the {@link HexMetricsListener}. Without a listener
+ * the instrumented operations only read a single field.
+ */
+public final class HexMetrics {
+	private static volatile HexMetricsListener listener;
+
+	private HexMetrics() {
+	}
+
+	/**
+	 * @param listener receives the measurements of all hex files; null disables
+	 *                 the measurements
+	 */
+	public static void setListener(HexMetricsListener listener) {
+		HexMetrics.listener = listener;
+	}
+
+	/**
+	 * @return the installed listener or null
+	 */
+	public static HexMetricsListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Creates a listener which commits the measurements as Java Flight Recorder
+	 * events in the category "Intel Hex". The events of {@code readBytes} and
+	 * {@code updateBytes} are disabled by default and have to be enabled in the
+	 * recording settings.
+	 *
+	 * @return the listener or an empty optional if the runtime does not support
+	 *         Flight Recorder events
+	 */
+	public static Optional<HexMetricsListener> jfrListener() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			// loaded by name so that older runtimes never link the event classes
+			return Optional.of((HexMetricsListener) Class.forName("net.alenzen.intelHex.JfrMetricsListener")
+					.getDeclaredConstructor().newInstance());
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return Optional.empty();
+		}
+	}
+}
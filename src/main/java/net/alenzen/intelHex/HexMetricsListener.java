@@ -0,0 +1,46 @@
+package net.alenzen.intelHex;
+
+/**
+ * Receives measurements of the library operations once they have finished.
+ * Install it with {@link HexMetrics#setListener(HexMetricsListener)}. The
+ * methods are called on the thread which performed the operation.
+ */
+public interface HexMetricsListener {
+	/**
+	 * Called after a hex file has been parsed.
+	 */
+	default void parsed(ParseMetrics metrics) {
+	}
+
+	/**
+	 * Called after a hex file has been written by one of the {@code writeTo}
+	 * methods.
+	 *
+	 * @param records number of written records
+	 * @param bytes   number of written characters
+	 */
+	default void written(long records, long bytes, long nanos) {
+	}
+
+	/**
+	 * Called after a {@link HexLineIndex} has been built.
+	 *
+	 * @param segments number of segments of the index
+	 */
+	default void indexBuilt(int segments, long nanos) {
+	}
+
+	/**
+	 * Called after {@link IntelHexFile#readBytes(long, int)}.
+	 */
+	default void bytesRead(int length, long nanos) {
+	}
+
+	/**
+	 * Called after {@link IntelHexFile#updateBytes(long, byte[])}.
+	 *
+	 * @param linesCreated number of records which have been created in gaps
+	 */
+	default void bytesUpdated(int length, int linesCreated, long nanos) {
+	}
+}
@@ -0,0 +1,83 @@
+package net.alenzen.intelHex;
+
+import java.util.Arrays;
+
+/**
+ * Mutable view on the current record of a {@link HexRecordReader}. The same
+ * instance and data buffer are reused for every record.
+ */
+public class HexRecord {
+	private long lineNumber;
+	private short length;
+	private int address;
+	private long fullAddress;
+	private RecordType type;
+	private byte[] data;
+	private int dataLength;
+	private byte checksum;
+
+	void set(long lineNumber, HexRecordDecoder decoder, long fullAddress) {
+		this.lineNumber = lineNumber;
+		this.length = decoder.getLength();
+		this.address = decoder.getAddress();
+		this.fullAddress = fullAddress;
+		this.type = decoder.getType();
+		this.data = decoder.getData();
+		this.dataLength = decoder.getDataLength();
+		this.checksum = decoder.getChecksum();
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return the length as stated in the record
+	 */
+	public short getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the 16 bit address as stated in the record
+	 */
+	public int getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return the address including the active address extension for data
+	 *         records, the extension offset for address extension records and
+	 *         {@link #getAddress()} for all other records
+	 */
+	public long getFullAddress() {
+		return fullAddress;
+	}
+
+	public RecordType getType() {
+		return type;
+	}
+
+	/**
+	 * The array is reused for the following records. Only the first
+	 * {@link #getDataLength()} bytes belong to this record.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	public int getDataLength() {
+		return dataLength;
+	}
+
+	public byte getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * @return a copy of the data of this record
+	 */
+	public byte[] copyData() {
+		return Arrays.copyOf(data, dataLength);
+	}
+}
@@ -0,0 +1,274 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decodes single hex records directly from {@code byte[]}, {@link ByteBuffer}
+ * or {@link CharSequence} input using a nibble lookup table.
+ *
+ * The decoder keeps the fields of the last successfully decoded record in
+ * reusable state. No objects are created while decoding valid input; only
+ * {@link #toHexFileLine(long, HexFileLine)} allocates the line and its data
+ * array. Invalid records are reported as a reused {@link ParseDiagnostic}
+ * whose message is only formatted on request.
+ *
+ * Instances are not thread-safe.
+ */
+public class HexRecordDecoder {
+	private static final byte INVALID = -1;
+	private static final byte[] NIBBLES = new byte[256];
+
+	static {
+		Arrays.fill(NIBBLES, INVALID);
+		for (int i = 0; i < 10; i++) {
+			NIBBLES['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			NIBBLES['A' + i] = (byte) (10 + i);
+			NIBBLES['a' + i] = (byte) (10 + i);
+		}
+	}
+
+	private final ParseDiagnosticHandler handler;
+	private final ParseDiagnostic diagnostic = new ParseDiagnostic();
+	private final ByteArrayInput byteArrayInput = new ByteArrayInput();
+	private final ByteBufferInput byteBufferInput = new ByteBufferInput();
+	private final CharSequenceInput charSequenceInput = new CharSequenceInput();
+
+	private short length;
+	private int address;
+	private byte type;
+	private RecordType recordType;
+	private byte checksum;
+	private byte[] data = new byte[IntelHexFile.BYTE_COUNT_MAX];
+	private int dataLength;
+
+	public HexRecordDecoder(IParsingError log) {
+		this((ParseDiagnosticHandler) log);
+	}
+
+	public HexRecordDecoder(ParseDiagnosticHandler handler) {
+		this.handler = handler == null ? IParsingError.VOID : handler;
+	}
+
+	/**
+	 * Decodes the record within {@code line[start, end)}.
+	 *
+	 * @return true if a record has been decoded, false if the record has been
+	 *         skipped. The reason is reported to the
+	 *         {@link ParseDiagnosticHandler}.
+	 */
+	public boolean decode(long lineNumber, byte[] line, int start, int end) {
+		byteArrayInput.bytes = line;
+		return decode(lineNumber, byteArrayInput, 0, start, end);
+	}
+
+	/**
+	 * Decodes the record within {@code line[start, end)} using absolute indexes.
+	 * The position of the buffer is not modified.
+	 *
+	 * @return true if a record has been decoded, false if the record has been
+	 *         skipped. The reason is reported to the
+	 *         {@link ParseDiagnosticHandler}.
+	 */
+	public boolean decode(long lineNumber, ByteBuffer line, int start, int end) {
+		if (line.hasArray()) {
+			byteArrayInput.bytes = line.array();
+			return decode(lineNumber, byteArrayInput, line.arrayOffset(), line.arrayOffset() + start,
+					line.arrayOffset() + end);
+		}
+
+		byteBufferInput.buffer = line;
+		return decode(lineNumber, byteBufferInput, 0, start, end);
+	}
+
+	/**
+	 * Decodes the record within {@code line[start, end)}.
+	 *
+	 * @return true if a record has been decoded, false if the record has been
+	 *         skipped. The reason is reported to the
+	 *         {@link ParseDiagnosticHandler}.
+	 */
+	public boolean decode(long lineNumber, CharSequence line, int start, int end) {
+		charSequenceInput.chars = line;
+		return decode(lineNumber, charSequenceInput, 0, start, end);
+	}
+
+	public boolean decode(long lineNumber, CharSequence line) {
+		return decode(lineNumber, line, 0, line.length());
+	}
+
+	/**
+	 * @param origin index within {@code in} which is reported as index 0
+	 */
+	private boolean decode(long lineNumber, Input in, int origin, int start, int end) {
+		// same semantics as String.trim()
+		while (start < end && in.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && in.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		boolean hasColon = start < end && in.charAt(start) == ':';
+		if (!hasColon) {
+			handler.report(diagnostic.set(ParseErrorCode.MISSING_COLON, lineNumber, 1, in, origin, start, end, false));
+		}
+
+		int p = hasColon ? start + 1 : start;
+		if (end - p + 1 < 11) {
+			handler.report(diagnostic.set(ParseErrorCode.TOO_SHORT, lineNumber, end - start + 1, in, origin, start,
+					end, !hasColon));
+			return false;
+		}
+
+		int checksumIndex = end - 2;
+		int invalidAt = firstInvalid(in, p, p + 8);
+		if (invalidAt < 0) {
+			invalidAt = firstInvalid(in, checksumIndex, end);
+		}
+		int count = (checksumIndex - (p + 8)) / 2;
+		if (invalidAt < 0) {
+			invalidAt = firstInvalid(in, p + 8, p + 8 + count * 2);
+		}
+		if (invalidAt >= 0) {
+			handler.report(diagnostic
+					.set(ParseErrorCode.INVALID_CHARACTER, lineNumber, invalidAt - start + 1, in, origin, start, end,
+							!hasColon)
+					.invalidSymbols(invalidAt, Math.min(invalidAt + 2, end)));
+			return false;
+		}
+
+		short newLength = (short) decodeByte(in, p);
+		int newAddress = (decodeByte(in, p + 2) << 8) | decodeByte(in, p + 4);
+		byte newType = (byte) decodeByte(in, p + 6);
+		RecordType newRecordType = RecordType.lookup(newType);
+		if (newRecordType == null) {
+			handler.report(diagnostic.set(ParseErrorCode.UNKNOWN_RECORD_TYPE, lineNumber, p + 6 - start + 1, in,
+					origin, start, end, !hasColon).recordType(newType));
+			return false;
+		}
+
+		if (data.length < count) {
+			data = new byte[count];
+		}
+		for (int i = 0, j = p + 8; i < count; i++, j += 2) {
+			data[i] = (byte) decodeByte(in, j);
+		}
+
+		recordType = newRecordType;
+		length = newLength;
+		address = newAddress;
+		type = newType;
+		checksum = (byte) decodeByte(in, checksumIndex);
+		dataLength = count;
+		return true;
+	}
+
+	/**
+	 * @return index of the first two-digit group within {@code [from, to)} which
+	 *         contains a character that is not a hex digit, -1 if all are valid
+	 */
+	private static int firstInvalid(Input in, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (nibble(in.charAt(i)) == INVALID) {
+				return from + ((i - from) & ~1);
+			}
+		}
+		return -1;
+	}
+
+	private static int decodeByte(Input in, int index) {
+		return (nibble(in.charAt(index)) << 4) | nibble(in.charAt(index + 1));
+	}
+
+	private static int nibble(int c) {
+		if (c > 0xFF) {
+			return INVALID;
+		}
+		return NIBBLES[c];
+	}
+
+	/**
+	 * Creates a new {@link HexFileLine} from the last decoded record. The data is
+	 * copied into a new array.
+	 */
+	public HexFileLine toHexFileLine(long lineNumber, HexFileLine addressExtension) {
+		return new HexFileLine(lineNumber, length, address, type, Arrays.copyOf(data, dataLength), checksum,
+				addressExtension);
+	}
+
+	public short getLength() {
+		return length;
+	}
+
+	public int getAddress() {
+		return address;
+	}
+
+	public RecordType getType() {
+		return recordType;
+	}
+
+	public byte getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * The returned array is reused by the next call to decode. Only the first
+	 * {@link #getDataLength()} bytes are valid.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	public int getDataLength() {
+		return dataLength;
+	}
+
+	static abstract class Input {
+		abstract int charAt(int index);
+
+		/**
+		 * Only used to build diagnostic messages.
+		 */
+		String toString(int start, int end, boolean prefixColon) {
+			StringBuilder sb = new StringBuilder(end - start + 1);
+			if (prefixColon) {
+				sb.append(':');
+			}
+			for (int i = start; i < end; i++) {
+				sb.append((char) charAt(i));
+			}
+			return sb.toString();
+		}
+	}
+
+	private static final class ByteArrayInput extends Input {
+		byte[] bytes;
+
+		@Override
+		int charAt(int index) {
+			return bytes[index] & 0xFF;
+		}
+	}
+
+	private static final class ByteBufferInput extends Input {
+		ByteBuffer buffer;
+
+		@Override
+		int charAt(int index) {
+			return buffer.get(index) & 0xFF;
+		}
+	}
+
+	private static final class CharSequenceInput extends Input {
+		CharSequence chars;
+
+		@Override
+		int charAt(int index) {
+			return chars.charAt(index);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package net.alenzen.intelHex;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes records as ASCII directly into a reusable buffer which is written to
+ * a channel in large blocks. No strings or intermediate arrays are created per
+ * record.
+ *
+ * The channel is not closed by the encoder. Call {@link #flush()} after the
+ * last record.
+ */
+public class HexRecordEncoder implements Flushable {
+	private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E',
+			'F' };
+	private static final int MAX_RECORD_LENGTH = 11 + IntelHexFile.BYTE_COUNT_MAX * 2;
+
+	private final WritableByteChannel channel;
+	private final byte[] lineTerminator;
+	private final ByteBuffer buffer;
+	private long writtenBytes = 0;
+
+	public HexRecordEncoder(WritableByteChannel channel) {
+		this(channel, new WriteOptions());
+	}
+
+	/**
+	 * @param channel receives the encoded records
+	 * @param options line terminator and buffer settings
+	 */
+	public HexRecordEncoder(WritableByteChannel channel, WriteOptions options) {
+		this.channel = channel;
+
+		String terminator = options.getLineTerminator();
+		this.lineTerminator = new byte[terminator.length()];
+		for (int i = 0; i < lineTerminator.length; i++) {
+			lineTerminator[i] = (byte) terminator.charAt(i);
+		}
+
+		int capacity = Math.max(options.getBufferSize(), MAX_RECORD_LENGTH + lineTerminator.length);
+		this.buffer = options.isDirectBuffer() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	/**
+	 * Writes the line as it would be returned by {@link HexFileLine#toString()}
+	 * followed by the line terminator. The stored checksum is written unchanged.
+	 */
+	public void write(HexFileLine line) throws IOException {
+		byte[] data = line.getData();
+		encode(line.getLength(), line.getAddress(), line.getType(), data, 0, data.length, line.getChecksum());
+	}
+
+	/**
+	 * Writes a record with the given content and a calculated checksum followed
+	 * by the line terminator.
+	 *
+	 * @param address 16 bit address field of the record
+	 * @param type    type of the record
+	 * @param data    contains the data of the record
+	 * @param offset  index of the first data byte
+	 * @param length  number of data bytes; at most 255
+	 */
+	public void write(int address, RecordType type, byte[] data, int offset, int length) throws IOException {
+		if (length < 0 || length > IntelHexFile.BYTE_COUNT_MAX) {
+			throw new IllegalArgumentException("Record length needs to be between 0 and 255!");
+		}
+
+		int sum = length + (address >>> 8) + address + type.getOrdinal();
+		for (int i = offset; i < offset + length; i++) {
+			sum += data[i];
+		}
+		encode(length, address, type, data, offset, length, (byte) -sum);
+	}
+
+	private void encode(int length, int address, RecordType type, byte[] data, int offset, int dataLength,
+			byte checksum) throws IOException {
+		if (buffer.remaining() < 11 + dataLength * 2 + lineTerminator.length) {
+			writeBuffer();
+		}
+
+		int p = buffer.position();
+		buffer.put(p++, (byte) ':');
+		p = putByte(p, length);
+		p = putByte(p, address >>> 8);
+		p = putByte(p, address);
+		p = putByte(p, type.getOrdinal());
+		for (int i = offset; i < offset + dataLength; i++) {
+			p = putByte(p, data[i]);
+		}
+		p = putByte(p, checksum);
+		for (byte b : lineTerminator) {
+			buffer.put(p++, b);
+		}
+		buffer.position(p);
+	}
+
+	private int putByte(int p, int v) {
+		buffer.put(p, HEX[v >>> 4 & 0x0F]);
+		buffer.put(p + 1, HEX[v & 0x0F]);
+		return p + 2;
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		writtenBytes += buffer.remaining();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @return number of bytes which have been passed to the channel
+	 */
+	public long getWrittenBytes() {
+		return writtenBytes;
+	}
+
+	/**
+	 * Writes all buffered records to the channel.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+	}
+}
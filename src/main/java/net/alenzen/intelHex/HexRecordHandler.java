@@ -0,0 +1,48 @@
+package net.alenzen.intelHex;
+
+/**
+ * Receives the records of a hex file one after another in file order.
+ * 
+ * @see HexRecordReader#readAll(HexRecordHandler)
+ */
+public interface HexRecordHandler {
+	/**
+	 * Called for every data record. The buffer is reused for the following
+	 * records and must not be kept.
+	 * 
+	 * @param fullAddress address of the first byte including the address
+	 *                    extension
+	 * @param buffer      contains the data of the record
+	 * @param offset      index of the first data byte within buffer
+	 * @param length      number of data bytes
+	 */
+	void onData(long fullAddress, byte[] buffer, int offset, int length);
+
+	/**
+	 * Called for every extended segment or extended linear address record.
+	 * 
+	 * @param type            {@link RecordType#EXTENDED_SEGMENT_ADDRESS} or
+	 *                        {@link RecordType#EXTENDED_LINEAR_ADDRESS}
+	 * @param extensionOffset offset which is added to the addresses of the
+	 *                        following data records
+	 */
+	default void onExtension(RecordType type, long extensionOffset) {
+	}
+
+	/**
+	 * Called for every start segment or start linear address record.
+	 * 
+	 * @param type         {@link RecordType#START_SEGMENT_ADDRESS} or
+	 *                     {@link RecordType#START_LINEAR_ADDRESS}
+	 * @param startAddress the data of the record as unsigned big endian value;
+	 *                     CS:IP for start segment address records
+	 */
+	default void onStartAddress(RecordType type, long startAddress) {
+	}
+
+	/**
+	 * Called for every end of file record.
+	 */
+	default void onEof() {
+	}
+}
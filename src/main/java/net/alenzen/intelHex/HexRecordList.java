@@ -0,0 +1,257 @@
+package net.alenzen.intelHex;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Record list of an {@link IntelHexFile} which reports every insert, removal
+ * and replacement to the file so that its {@link HexLineIndex} stays
+ * consistent. The contained lines report changes of their address, type or
+ * data through this list as well.
+ *
+ * The lines are kept in an array of their own type, so that inserts move them
+ * without copying the whole list or checking the type of every line.
+ */
+class HexRecordList extends AbstractList<HexFileLine> implements RandomAccess {
+	// anchors of an insert which are compared directly instead of being marked
+	private static final int COMPARED_ANCHORS = 8;
+
+	private final IntelHexFile hf;
+	private HexFileLine[] records;
+	private int size;
+	// position behind the most recently inserted lines
+	private int insertHint = 0;
+
+	/**
+	 * @param records copied, so that modifications through the given list cannot
+	 *                bypass the tracking
+	 */
+	HexRecordList(IntelHexFile hf, List<HexFileLine> records) {
+		this.hf = hf;
+		this.records = records.toArray(new HexFileLine[records.size()]);
+		this.size = this.records.length;
+		for (HexFileLine l : this.records) {
+			l.setOwner(this);
+		}
+	}
+
+	@Override
+	public HexFileLine get(int index) {
+		checkIndex(index);
+		return records[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public HexFileLine set(int index, HexFileLine element) {
+		checkIndex(index);
+		HexFileLine old = records[index];
+		records[index] = element;
+		release(old);
+		hf.recordRemoved(old);
+		element.setOwner(this);
+		hf.recordAdded(element);
+		return old;
+	}
+
+	@Override
+	public void add(int index, HexFileLine element) {
+		checkPosition(index);
+		ensureCapacity(size + 1);
+		System.arraycopy(records, index, records, index + 1, size - index);
+		records[index] = element;
+		size++;
+		modCount++;
+		element.setOwner(this);
+		hf.recordAdded(element);
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends HexFileLine> c) {
+		checkPosition(index);
+		Object[] added = c.toArray();
+		ensureCapacity(size + added.length);
+		System.arraycopy(records, index, records, index + added.length, size - index);
+		System.arraycopy(added, 0, records, index, added.length);
+		size += added.length;
+		modCount++;
+		for (Object o : added) {
+			HexFileLine l = (HexFileLine) o;
+			l.setOwner(this);
+			hf.recordAdded(l);
+		}
+		return added.length != 0;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends HexFileLine> c) {
+		return addAll(size, c);
+	}
+
+	@Override
+	public HexFileLine remove(int index) {
+		checkIndex(index);
+		HexFileLine old = records[index];
+		System.arraycopy(records, index + 1, records, index, size - index - 1);
+		records[--size] = null;
+		modCount++;
+		release(old);
+		hf.recordRemoved(old);
+		return old;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		HexFileLine[] removed = Arrays.copyOfRange(records, fromIndex, toIndex);
+		System.arraycopy(records, toIndex, records, fromIndex, size - toIndex);
+		Arrays.fill(records, size - removed.length, size, null);
+		size -= removed.length;
+		modCount++;
+		for (HexFileLine l : removed) {
+			release(l);
+			hf.recordRemoved(l);
+		}
+	}
+
+	/**
+	 * Inserts each group of lines directly behind the line it is mapped to, or
+	 * at the beginning for the {@code null} key, in a single pass without
+	 * reporting them to the file. The caller is responsible for updating the
+	 * index.
+	 *
+	 * A few anchors are found by comparing the references, starting behind the
+	 * previous insert as consecutive writes usually continue there; more
+	 * anchors are marked, so that only they are looked up in the map. The lines
+	 * are then moved from the back, each at most once.
+	 */
+	void insertBehind(Map<HexFileLine, List<HexFileLine>> inserts) {
+		List<HexFileLine> keys = new ArrayList<HexFileLine>(inserts.keySet());
+		keys.remove(null);
+		HexFileLine[] anchors = keys.toArray(new HexFileLine[keys.size()]);
+		boolean marked = anchors.length > COMPARED_ANCHORS;
+		if (marked) {
+			for (HexFileLine anchor : anchors) {
+				anchor.setInsertAnchor(true);
+			}
+		}
+
+		// anchors and their positions, wrapping around behind the hint
+		HexFileLine[] found = new HexFileLine[anchors.length];
+		int[] positions = new int[anchors.length];
+		int start = marked ? 0 : Math.min(insertHint, size);
+		int n = 0;
+		for (int s = 0; n < anchors.length && s < size; s++) {
+			int i = start + s < size ? start + s : start + s - size;
+			HexFileLine l = records[i];
+			if (marked ? l.isInsertAnchor() : containsReference(anchors, l)) {
+				l.setInsertAnchor(false);
+				found[n] = l;
+				positions[n] = i;
+				n++;
+			}
+		}
+		sortByPosition(found, positions, n);
+
+		if (n < anchors.length) {
+			for (HexFileLine anchor : anchors) {
+				anchor.setInsertAnchor(false);
+			}
+			throw new IllegalStateException("Lines have been inserted behind a line which is not part of the records.");
+		}
+
+		int count = 0;
+		for (List<HexFileLine> lines : inserts.values()) {
+			count += lines.size();
+		}
+		ensureCapacity(size + count);
+
+		// the old lines in front of end still need to be moved by shift
+		int end = size;
+		int shift = count;
+		for (int k = n - 1; k >= -1; k--) {
+			int position = k >= 0 ? positions[k] + 1 : 0;
+			System.arraycopy(records, position, records, position + shift, end - position);
+			List<HexFileLine> lines = inserts.get(k >= 0 ? found[k] : null);
+			if (lines != null) {
+				shift -= lines.size();
+				for (int j = 0; j < lines.size(); j++) {
+					HexFileLine l = lines.get(j);
+					l.setOwner(this);
+					records[position + shift + j] = l;
+				}
+			}
+			end = position;
+		}
+		size += count;
+		modCount++;
+		insertHint = n > 0 ? positions[n - 1] + 1 + count : count;
+		hf.recordsSpliced();
+	}
+
+	/**
+	 * Insertion sort of the few anchors which have been found out of order.
+	 */
+	private static void sortByPosition(HexFileLine[] lines, int[] positions, int n) {
+		for (int i = 1; i < n; i++) {
+			HexFileLine l = lines[i];
+			int p = positions[i];
+			int j = i - 1;
+			while (j >= 0 && positions[j] > p) {
+				lines[j + 1] = lines[j];
+				positions[j + 1] = positions[j];
+				j--;
+			}
+			lines[j + 1] = l;
+			positions[j + 1] = p;
+		}
+	}
+
+	private static boolean containsReference(HexFileLine[] lines, HexFileLine line) {
+		for (int i = 0; i < lines.length; i++) {
+			if (lines[i] == line) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > records.length) {
+			records = Arrays.copyOf(records, Math.max(capacity, records.length + (records.length >> 1)));
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	private void checkPosition(int index) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	private void release(HexFileLine l) {
+		l.setOwner(null);
+	}
+
+	/**
+	 * Called by a contained line after its address, type or data has been
+	 * changed.
+	 */
+	void recordChanged(HexFileLine l, long oldStartAddress, int oldLength, RecordType oldType,
+			long oldExtensionOffset) {
+		hf.recordChanged(l, oldStartAddress, oldLength, oldType, oldExtensionOffset);
+	}
+}
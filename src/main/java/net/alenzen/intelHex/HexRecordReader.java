@@ -0,0 +1,161 @@
+package net.alenzen.intelHex;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the records of a hex file one after another without building an
+ * {@link IntelHexFile}. The reader works in constant memory: a single
+ * {@link HexRecord} and its data buffer are reused for all records.
+ *
+ * Invalid records are reported to the {@link ParseDiagnosticHandler} and
+ * skipped just like {@link IntelHexFile#parse(Reader, ParseDiagnosticHandler)}
+ * does. An {@link IParsingError} receives the formatted messages instead.
+ */
+public class HexRecordReader implements Closeable {
+	private final HexRecordDecoder decoder;
+	private final HexRecord record = new HexRecord();
+
+	private final BufferedReader reader;
+	private final ByteBuffer content;
+	private final HexRecordScanner scanner;
+
+	private long linenumber = 0;
+	private long extensionOffset = 0;
+
+	/**
+	 * Reads records from a character stream.
+	 *
+	 * @param in  hex file content
+	 * @param log receives all parsing errors; may be null
+	 */
+	public HexRecordReader(Reader in, IParsingError log) {
+		this(in, (ParseDiagnosticHandler) log);
+	}
+
+	/**
+	 * Reads records from a character stream and reports errors as structured
+	 * diagnostics.
+	 *
+	 * @param in      hex file content
+	 * @param handler receives all parsing errors; may be null
+	 */
+	public HexRecordReader(Reader in, ParseDiagnosticHandler handler) {
+		this.decoder = new HexRecordDecoder(handler);
+		this.reader = new BufferedReaderHexLines(in);
+		this.content = null;
+		this.scanner = null;
+	}
+
+	/**
+	 * Reads records from the remaining bytes of the buffer. The position of the
+	 * buffer is not modified.
+	 *
+	 * @param content ASCII encoded hex file content
+	 * @param log     receives all parsing errors; may be null
+	 */
+	public HexRecordReader(ByteBuffer content, IParsingError log) {
+		this(content, (ParseDiagnosticHandler) log);
+	}
+
+	/**
+	 * Reads records from the remaining bytes of the buffer and reports errors
+	 * as structured diagnostics. The position of the buffer is not modified.
+	 *
+	 * @param content ASCII encoded hex file content
+	 * @param handler receives all parsing errors; may be null
+	 */
+	public HexRecordReader(ByteBuffer content, ParseDiagnosticHandler handler) {
+		this.decoder = new HexRecordDecoder(handler);
+		this.reader = null;
+		this.content = content;
+		this.scanner = new HexRecordScanner(content, content.position(), content.limit());
+	}
+
+	/**
+	 * Moves to the next valid record.
+	 *
+	 * @return the current record or null if the end of the input has been
+	 *         reached. The same instance is returned for every record.
+	 * @throws IOException
+	 */
+	public HexRecord next() throws IOException {
+		if (!decodeNext()) {
+			return null;
+		}
+
+		long fullAddress;
+		RecordType type = decoder.getType();
+		if (type == RecordType.DATA) {
+			fullAddress = extensionOffset + decoder.getAddress();
+		} else if (HexFileBuilder.isAddressExtension(type)) {
+			extensionOffset = AddressExtensionUtils.extensionOffset(type, decoder.getData(), 0,
+					decoder.getDataLength());
+			fullAddress = extensionOffset;
+		} else {
+			fullAddress = decoder.getAddress();
+		}
+
+		record.set(linenumber, decoder, fullAddress);
+		return record;
+	}
+
+	private boolean decodeNext() throws IOException {
+		if (reader != null) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				linenumber++;
+				if (decoder.decode(linenumber, line)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		while (scanner.next()) {
+			linenumber++;
+			if (decoder.decode(linenumber, content, scanner.getRecordStart(), scanner.getRecordEnd())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads all remaining records and passes them to the handler.
+	 *
+	 * @param handler receives the records in file order
+	 * @throws IOException
+	 */
+	public void readAll(HexRecordHandler handler) throws IOException {
+		HexRecord r;
+		while ((r = next()) != null) {
+			switch (r.getType()) {
+			case DATA:
+				handler.onData(r.getFullAddress(), r.getData(), 0, r.getDataLength());
+				break;
+			case EXTENDED_SEGMENT_ADDRESS:
+			case EXTENDED_LINEAR_ADDRESS:
+				handler.onExtension(r.getType(), r.getFullAddress());
+				break;
+			case START_SEGMENT_ADDRESS:
+			case START_LINEAR_ADDRESS:
+				handler.onStartAddress(r.getType(), ByteUtils.toLong(r.getData(), 0, r.getDataLength()));
+				break;
+			case END_OF_FILE:
+				handler.onEof();
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits ASCII hex content into record slices without copying it. Like
+ * {@link BufferedReaderHexLines} a single line may contain multiple records
+ * separated by ':'. Blank slices are skipped.
+ */
+class HexRecordScanner {
+	private final ByteBuffer buffer;
+	private final int limit;
+	private int position;
+	private int recordStart;
+	private int recordEnd;
+
+	/**
+	 * Scans {@code buffer[from, to)} using absolute indexes.
+	 */
+	HexRecordScanner(ByteBuffer buffer, int from, int to) {
+		this.buffer = buffer;
+		this.position = from;
+		this.limit = to;
+	}
+
+	/**
+	 * Moves to the next record slice.
+	 *
+	 * @return false if the end of the input has been reached
+	 */
+	boolean next() {
+		while (position < limit) {
+			int start = position;
+			int end = start + 1;
+			while (end < limit && !isRecordBoundary(buffer.get(end))) {
+				end++;
+			}
+			position = end;
+
+			if (!isBlank(start, end)) {
+				recordStart = start;
+				recordEnd = end;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isBlank(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((buffer.get(i) & 0xFF) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isLineTerminator(byte b) {
+		return b == '\n' || b == '\r';
+	}
+
+	static boolean isRecordBoundary(byte b) {
+		return b == ':' || isLineTerminator(b);
+	}
+
+	/**
+	 * @return absolute index of the first byte of the current record
+	 */
+	int getRecordStart() {
+		return recordStart;
+	}
+
+	/**
+	 * @return absolute index after the last byte of the current record
+	 */
+	int getRecordEnd() {
+		return recordEnd;
+	}
+}
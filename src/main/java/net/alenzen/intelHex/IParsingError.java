@@ -1,8 +1,24 @@
 package net.alenzen.intelHex;
 
-public interface IParsingError {
-	public static final IParsingError VOID = (a, b, c) -> {
+public interface IParsingError extends ParseDiagnosticHandler {
+	public static final IParsingError VOID = new IParsingError() {
+		@Override
+		public void log(long lineNumber, String line, String message) {
+		}
+
+		@Override
+		public void report(ParseDiagnostic diagnostic) {
+		}
 	};
 
 	void log(long lineNumber, String line, String message);
-}
\ No newline at end of file
+
+	/**
+	 * Formats the line and the message of the diagnostic and passes them to
+	 * {@link #log(long, String, String)}.
+	 */
+	@Override
+	default void report(ParseDiagnostic diagnostic) {
+		log(diagnostic.getLineNumber(), diagnostic.getLine(), diagnostic.getMessage());
+	}
+}
@@ -1,5 +1,6 @@
 package net.alenzen.intelHex;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -9,27 +10,42 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	public static final short BYTE_COUNT_16 = 0x10;
 	public static final short BYTE_COUNT_32 = 0x20;
 	public static final short BYTE_COUNT_MAX = 0xFF;
+	// addresses which can be reached by the lines of a single address extension
+	private static final long EXTENSION_WINDOW = HexFileLine.ADDRESS_MAX + 1 + BYTE_COUNT_MAX;
 
-	private List<HexFileLine> records;
+	private HexRecordList records;
 	private short maximumLineByteCount = BYTE_COUNT_32;
 	private HexFormat hexFormat;
 	private HexLineIndex index;
+	private HexImageView lastSnapshot;
+	// incremented on every change of the address ranges of the records
+	private int modificationCount = 0;
 
-	private IntelHexFile(List<HexFileLine> lines, HexFormat format) {
-		this.records = lines;
+	IntelHexFile(List<HexFileLine> lines, HexFormat format) {
+		this.records = new HexRecordList(this, lines);
 		this.hexFormat = format;
 	}
 
@@ -40,7 +56,130 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	public static IntelHexFile create(HexFormat format) {
 		return new IntelHexFile(new ArrayList<>(), format);
 	}
+
+	/**
+	 * Creates records for the remaining bytes of the buffer starting at
+	 * {@code baseAddress} with {@link #BYTE_COUNT_32} bytes per record.
+	 * 
+	 * @see #fromBinary(ByteBuffer, long, HexFormat, short)
+	 */
+	public static IntelHexFile fromBinary(ByteBuffer data, long baseAddress, HexFormat format) {
+		return fromBinary(data, baseAddress, format, BYTE_COUNT_32);
+	}
+
+	/**
+	 * Creates records for the remaining bytes of the buffer starting at
+	 * {@code baseAddress} in a single pass. Address extension records are
+	 * inserted where the data leaves a 64 KiB window, an end of file record is
+	 * appended. The position of the buffer is not modified.
+	 * 
+	 * @param data                 binary image
+	 * @param baseAddress          address of the first byte
+	 * @param format               format of the address extension records
+	 * @param maximumLineByteCount maximum number of data bytes per record
+	 * @return the created hex file
+	 * @throws IllegalArgumentException if the image cannot be represented in the
+	 *                                  format
+	 */
+	public static IntelHexFile fromBinary(ByteBuffer data, long baseAddress, HexFormat format,
+			short maximumLineByteCount) {
+		if (baseAddress < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		List<HexFileLine> records = new ArrayList<HexFileLine>(
+				data.remaining() / Math.max(1, maximumLineByteCount) + data.remaining() / 0x10000 + 3);
+		HexLineFactory<RuntimeException> factory = HexLineFactory.toLines(format, maximumLineByteCount, records::add);
+
+		if (data.hasArray()) {
+			factory.add(baseAddress, data.array(), data.arrayOffset() + data.position(), data.remaining());
+		} else {
+			ByteBuffer source = data.duplicate();
+			byte[] chunk = new byte[Math.min(source.remaining(), 1 << 16)];
+			long address = baseAddress;
+			while (source.hasRemaining()) {
+				int l = Math.min(source.remaining(), chunk.length);
+				source.get(chunk, 0, l);
+				factory.add(address, chunk, 0, l);
+				address += l;
+			}
+		}
+		factory.finish();
+
+		records.add(new HexFileLine(0, RecordType.END_OF_FILE, new byte[0], null));
+		IntelHexFile hexFile = new IntelHexFile(records, format);
+		hexFile.setMaximumLineByteCount(maximumLineByteCount);
+		return hexFile;
+	}
+
+	/**
+	 * Creates records for the content of a binary file with
+	 * {@link #BYTE_COUNT_32} bytes per record. The file is memory mapped.
+	 * 
+	 * @see #fromBinary(Path, long, HexFormat, short)
+	 */
+	public static IntelHexFile fromBinary(Path file, long baseAddress, HexFormat format) throws IOException {
+		return fromBinary(file, baseAddress, format, BYTE_COUNT_32);
+	}
+
+	/**
+	 * Creates records for the content of a binary file. The file is memory
+	 * mapped.
+	 * 
+	 * @see #fromBinary(ByteBuffer, long, HexFormat, short)
+	 */
+	public static IntelHexFile fromBinary(Path file, long baseAddress, HexFormat format, short maximumLineByteCount)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Binary files larger than 2 GiB are not supported.");
+			}
+			return fromBinary(channel.map(MapMode.READ_ONLY, 0, size), baseAddress, format, maximumLineByteCount);
+		}
+	}
 	
+	/**
+	 * Merges the data of the files.
+	 * 
+	 * @see #merge(List, MergeOptions)
+	 */
+	public static IntelHexFile merge(List<IntelHexFile> files, OverlapPolicy policy) throws OverlapException {
+		MergeOptions options = new MergeOptions();
+		options.setOverlapPolicy(policy);
+		return merge(files, options);
+	}
+
+	/**
+	 * Merges the data of the files into a new file with address sorted and
+	 * coalesced records followed by an end of file record. Addresses which are
+	 * defined by multiple files with the same value are no conflict. Start
+	 * address records are not merged.
+	 * 
+	 * @param files   files to merge; the order determines the winner of a
+	 *                conflict. The same instance may occur more than once; its
+	 *                index is built only once.
+	 * @param options overlap policy and format of the merged file
+	 * @return the merged file
+	 * @throws OverlapException if files define different values for an address
+	 *                          and the policy is {@link OverlapPolicy#FAIL}
+	 */
+	public static IntelHexFile merge(List<IntelHexFile> files, MergeOptions options) throws OverlapException {
+		return new HexFileMerger(files, options).merge();
+	}
+
+	/**
+	 * Parses and merges the files. The files are parsed in parallel if the merge
+	 * options contain a pool; the log of the parse options is called from
+	 * multiple threads then.
+	 * 
+	 * @see #merge(List, MergeOptions)
+	 */
+	public static IntelHexFile mergeFiles(List<Path> files, ParseOptions parseOptions, MergeOptions options)
+			throws IOException, InvalidFormatException, OverlapException {
+		return merge(HexFileMerger.parseAll(files, parseOptions, options.getForkJoinPool()), options);
+	}
+
 	public static IntelHexFile parse(String filename)
 			throws InvalidFormatException, FileNotFoundException, IOException {
 		return parse(new FileReader(filename), null);
@@ -60,45 +199,149 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	}
 
 	public static IntelHexFile parse(Reader fileStream, IParsingError log) throws IOException, InvalidFormatException {
-		if (log == null) {
-			log = IParsingError.VOID;
+		return parse(fileStream, (ParseDiagnosticHandler) log);
+	}
+
+	/**
+	 * Parses the records read from the reader and reports errors as structured
+	 * diagnostics. Messages are only formatted if the handler requests them.
+	 * 
+	 * @param handler receives all parsing errors; may be null
+	 */
+	public static IntelHexFile parse(Reader fileStream, ParseDiagnosticHandler handler)
+			throws IOException, InvalidFormatException {
+		ParseMetricsCollector metrics = ParseMetricsCollector.start(handler);
+		if (metrics != null) {
+			handler = metrics;
+			fileStream = metrics.count(fileStream);
+		}
+
+		if (handler == null) {
+			handler = IParsingError.VOID;
 		}
 
-		List<HexFileLine> lines = new ArrayList<HexFileLine>();
-		HexFormat format = HexFormat.I8HEX;
+		HexFileBuilder builder = new HexFileBuilder(handler);
 		try (BufferedReader br = new BufferedReaderHexLines(fileStream)) {
 			String line;
-			HexFileLine latestAddressExtension = null;
-			long linenumber = 0;
 			while ((line = br.readLine()) != null) {
-				linenumber++;
-				HexFileLine l = HexFileLine.parse(linenumber, line, latestAddressExtension, log);
-
-				if (l == null) {
-					continue;
+				if (metrics != null) {
+					metrics.enter(ParseMetricsCollector.Phase.DECODE);
 				}
-
-				if (l.getType() == RecordType.EXTENDED_LINEAR_ADDRESS
-						|| l.getType() == RecordType.EXTENDED_SEGMENT_ADDRESS) {
-					latestAddressExtension = l;
+				builder.addRecord(line);
+				if (metrics != null) {
+					metrics.enter(ParseMetricsCollector.Phase.READ);
 				}
+			}
+		}
 
-				HexFormat formatFromLine = HexFormat.determineFormat(l.getType());
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.LINK);
+		}
+		IntelHexFile result = builder.build();
+		return metrics == null ? result : metrics.finish(result);
+	}
 
-				if (format == HexFormat.I8HEX) {
-					format = formatFromLine;
-				} else if (formatFromLine != HexFormat.I8HEX && formatFromLine != format) {
-					log.log(linenumber, line,
-							String.format(
-									"HexFile format is not clearly determinable. Expected %s but found record for %s",
-									format.name(), formatFromLine.name()));
-				}
+	public static IntelHexFile parse(byte[] content) {
+		return parse(ByteBuffer.wrap(content), (IParsingError) null);
+	}
 
-				lines.add(l);
-			}
+	public static IntelHexFile parse(byte[] content, IParsingError log) {
+		return parse(ByteBuffer.wrap(content), log);
+	}
+
+	public static IntelHexFile parse(ByteBuffer content) {
+		return parse(content, (IParsingError) null);
+	}
+
+	/**
+	 * Parses ASCII encoded hex records directly from the remaining bytes of the
+	 * buffer without decoding them to characters first. The position of the
+	 * buffer is not modified.
+	 * 
+	 * @param content ASCII encoded hex file content
+	 * @param log     receives all parsing errors; may be null
+	 * @return the parsed hex file
+	 */
+	public static IntelHexFile parse(ByteBuffer content, IParsingError log) {
+		return parse(content, (ParseDiagnosticHandler) log);
+	}
+
+	/**
+	 * Parses ASCII encoded hex records directly from the remaining bytes of the
+	 * buffer and reports errors as structured diagnostics. The position of the
+	 * buffer is not modified.
+	 * 
+	 * @param content ASCII encoded hex file content
+	 * @param handler receives all parsing errors; may be null
+	 * @return the parsed hex file
+	 */
+	public static IntelHexFile parse(ByteBuffer content, ParseDiagnosticHandler handler) {
+		ParseMetricsCollector metrics = ParseMetricsCollector.start(handler);
+		if (metrics != null) {
+			handler = metrics;
+			metrics.addBytes(content.remaining());
+			metrics.enter(ParseMetricsCollector.Phase.DECODE);
+		}
+
+		if (handler == null) {
+			handler = IParsingError.VOID;
 		}
 
-		return new IntelHexFile(lines, format);
+		HexFileBuilder builder = new HexFileBuilder(handler);
+		builder.addRecords(content, content.position(), content.limit());
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.LINK);
+		}
+		IntelHexFile result = builder.build();
+		return metrics == null ? result : metrics.finish(result);
+	}
+
+	/**
+	 * Parses ASCII encoded hex records directly from the remaining bytes of the
+	 * buffer. The position of the buffer is not modified.
+	 * 
+	 * @param content ASCII encoded hex file content
+	 * @param options parsing options; a {@link ParseOptions#getForkJoinPool()}
+	 *                enables parallel parsing
+	 * @return the parsed hex file
+	 */
+	public static IntelHexFile parse(ByteBuffer content, ParseOptions options) {
+		ParseMetricsCollector metrics = ParseMetricsCollector.start(options.getDiagnosticHandler());
+		if (metrics != null) {
+			metrics.addBytes(content.remaining());
+			metrics.enter(ParseMetricsCollector.Phase.DECODE);
+		}
+
+		HexContentParser parser = HexContentParser.create(options, metrics);
+		parser.addRecords(content, content.position(), content.limit());
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.LINK);
+		}
+		IntelHexFile result = parser.build();
+		return metrics == null ? result : metrics.finish(result);
+	}
+
+	public static IntelHexFile parse(Path file) throws IOException, InvalidFormatException {
+		return parse(file, new ParseOptions());
+	}
+
+	/**
+	 * Parses the given file. By default the file is memory mapped and the records
+	 * are decoded directly from the mapped ASCII bytes. Files larger than
+	 * {@link ParseOptions#getMappingChunkSize()} are mapped chunk by chunk.
+	 * 
+	 * @param file    hex file to parse
+	 * @param options parsing options
+	 * @return the parsed hex file
+	 * @throws IOException
+	 */
+	public static IntelHexFile parse(Path file, ParseOptions options) throws IOException, InvalidFormatException {
+		if (!options.isMemoryMapped()) {
+			return parse(new InputStreamReader(Files.newInputStream(file), StandardCharsets.US_ASCII),
+					options.getDiagnosticHandler());
+		}
+
+		return MappedHexFileParser.parse(file, options);
 	}
 
 	public String toHexFileString() {
@@ -115,12 +358,33 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	 * @throws IOException
 	 */
 	public void writeTo(OutputStream os, Charset cs) throws IOException {
+		if (isAsciiCompatible(cs)) {
+			// the stream adapter copies into a heap array, a direct buffer would only add a copy
+			WriteOptions options = new WriteOptions();
+			options.setDirectBuffer(false);
+			writeTo(Channels.newChannel(os), options);
+			return;
+		}
+
+		HexMetricsListener metrics = HexMetrics.getListener();
+		long start = metrics == null ? 0 : System.nanoTime();
+		long characters = 0;
 		for (HexFileLine l : records) {
 			l.writeTo(os, cs);
 			os.write(System.lineSeparator().getBytes(cs));
+			characters += 11 + l.getData().length * 2 + System.lineSeparator().length();
+		}
+
+		if (metrics != null) {
+			metrics.written(records.size(), characters, System.nanoTime() - start);
 		}
 	}
 
+	private static boolean isAsciiCompatible(Charset cs) {
+		return cs.equals(StandardCharsets.US_ASCII) || cs.equals(StandardCharsets.UTF_8)
+				|| cs.equals(StandardCharsets.ISO_8859_1);
+	}
+
 	/**
 	 * Writes the hex file as string data to the OutputStream. This method uses the
 	 * UTF-8 character set.
@@ -141,9 +405,14 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	 * @throws IOException
 	 */
 	public void writeTo(String file, Charset cs) throws IOException {
-		FileOutputStream f = new FileOutputStream(file);
-		writeTo(f, cs);
-		f.close();
+		if (isAsciiCompatible(cs)) {
+			writeTo(Paths.get(file), new WriteOptions());
+			return;
+		}
+
+		try (OutputStream f = new BufferedOutputStream(new FileOutputStream(file))) {
+			writeTo(f, cs);
+		}
 	}
 
 	/**
@@ -157,19 +426,193 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 		writeTo(file, StandardCharsets.UTF_8);
 	}
 
+	/**
+	 * Writes the records as ASCII to the channel. The records are encoded into a
+	 * reusable buffer and written in large blocks. The channel is not closed.
+	 * 
+	 * @param channel receives the hex file content
+	 * @param options line terminator and buffer settings
+	 * @throws IOException
+	 */
+	public void writeTo(WritableByteChannel channel, WriteOptions options) throws IOException {
+		HexMetricsListener metrics = HexMetrics.getListener();
+		long start = metrics == null ? 0 : System.nanoTime();
+		HexRecordEncoder encoder = new HexRecordEncoder(channel, options);
+		for (HexFileLine l : records) {
+			encoder.write(l);
+		}
+		encoder.flush();
+
+		if (metrics != null) {
+			metrics.written(records.size(), encoder.getWrittenBytes(), System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Writes the records as ASCII to the file. An existing file is overwritten.
+	 * 
+	 * @param file    file to write to
+	 * @param options line terminator and buffer settings
+	 * @throws IOException
+	 */
+	public void writeTo(Path file, WriteOptions options) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeTo(channel, options);
+		}
+	}
+
+	/**
+	 * Writes the records as ASCII to the file using the line separator of the
+	 * system. An existing file is overwritten.
+	 * 
+	 * @param file file to write to
+	 * @throws IOException
+	 */
+	public void writeTo(Path file) throws IOException {
+		writeTo(file, new WriteOptions());
+	}
+
+	/**
+	 * Calculates a checksum over {@code [from, to)} directly on the data of the
+	 * records. Bytes which are not defined are passed as {@code fill}.
+	 * 
+	 * @param from      first address of the range
+	 * @param to        address after the last address of the range
+	 * @param algorithm e.g. {@link ChecksumAlgorithm#CRC32}
+	 * @param fill      value of the bytes which are not defined
+	 * @return the checksum
+	 */
+	public long checksum(long from, long to, ChecksumAlgorithm algorithm, byte fill) {
+		return RangeChecksum.calculate(getIndex(), from, to, algorithm, fill, null);
+	}
+
+	/**
+	 * Calculates a checksum over {@code [from, to)}. Large ranges are split into
+	 * parts which are calculated on the pool and combined afterwards if the
+	 * algorithm supports it. The file must not be modified meanwhile.
+	 * 
+	 * @param pool pool to calculate the parts on
+	 * @see #checksum(long, long, ChecksumAlgorithm, byte)
+	 */
+	public long checksum(long from, long to, ChecksumAlgorithm algorithm, byte fill, ForkJoinPool pool) {
+		return RangeChecksum.calculate(getIndex(), from, to, algorithm, fill, pool);
+	}
+
+	/**
+	 * Writes the data of {@code [from, to)} as a flat binary image to the
+	 * channel. Bytes which are not defined are written as {@code fill}. The
+	 * channel is not closed.
+	 * 
+	 * @param channel receives the image
+	 * @param from    address of the first byte of the image
+	 * @param to      address after the last byte of the image
+	 * @param fill    value of the bytes which are not defined, e.g. 0xFF for
+	 *                erased flash
+	 * @throws IOException
+	 */
+	public void exportBinary(WritableByteChannel channel, long from, long to, byte fill) throws IOException {
+		BinaryExporter.export(getIndex(), channel, from, to, fill);
+	}
+
+	/**
+	 * Writes the data of {@code [from, to)} as a flat binary image to the file.
+	 * Large images are written through memory mapped regions. An existing file is
+	 * overwritten.
+	 * 
+	 * @param file file to write to
+	 * @param from address of the first byte of the image
+	 * @param to   address after the last byte of the image
+	 * @param fill value of the bytes which are not defined, e.g. 0xFF for erased
+	 *             flash
+	 * @throws IOException
+	 */
+	public void exportBinary(Path file, long from, long to, byte fill) throws IOException {
+		BinaryExporter.export(getIndex(), file, from, to, fill);
+	}
+
+	/**
+	 * Returns the records in file order. Modifications of the list and of the
+	 * contained lines are tracked and applied to the index automatically.
+	 * 
+	 * @return the modifiable list of records
+	 */
 	public List<HexFileLine> getRecords() {
 		return records;
 	}
 
+	HexRecordList getRecordList() {
+		return records;
+	}
+
+	/**
+	 * Rewrites the data records into address sorted, maximally filled records.
+	 * Only the necessary address extension records are created. Start address
+	 * records are kept and followed by a single end of file record if the file
+	 * contained one. Overlapping bytes keep the value which is currently read.
+	 * 
+	 * @param lineLength maximum number of data bytes per record; becomes the
+	 *                   maximum line byte count of the file
+	 */
+	public void compact(short lineLength) {
+		compact(lineLength, null);
+	}
+
+	/**
+	 * Compacts the records and sorts them on the given pool.
+	 * 
+	 * @param pool sorts the records in parallel if not null
+	 * @see #compact(short)
+	 */
+	public void compact(short lineLength, ForkJoinPool pool) {
+		HexLineIndex sorted = index != null ? getIndex() : new HexLineIndex(this, pool);
+		List<HexFileLine> compacted = new ArrayList<HexFileLine>();
+		HexLineFactory<RuntimeException> factory = HexLineFactory.toLines(hexFormat, lineLength, compacted::add);
+		for (int i = 0; i < sorted.size(); i++) {
+			HexFileLine l = sorted.getLine(i);
+			long start = sorted.getStartAddress(i);
+			factory.add(start, l.getData(), (int) (start - l.getFullStartAddress()),
+					(int) (sorted.getEndAddress(i) - start));
+		}
+		factory.finish();
+
+		HexFileLine endOfFile = null;
+		for (HexFileLine l : records) {
+			if (l.getType() == RecordType.START_SEGMENT_ADDRESS || l.getType() == RecordType.START_LINEAR_ADDRESS) {
+				compacted.add(l);
+			} else if (l.getType() == RecordType.END_OF_FILE && endOfFile == null) {
+				endOfFile = l;
+			}
+		}
+		if (endOfFile != null) {
+			compacted.add(endOfFile);
+		}
+
+		setRecords(compacted);
+		setMaximumLineByteCount(lineLength);
+	}
+
+	/**
+	 * Replaces all records. The given records are taken over into a tracked list;
+	 * later modifications need to be done through {@link #getRecords()}.
+	 * 
+	 * @param records new records in file order
+	 */
 	public void setRecords(List<HexFileLine> records) {
-		this.records = records;
+		for (HexFileLine l : this.records) {
+			l.setOwner(null);
+		}
+		this.records = new HexRecordList(this, records);
+		this.index = null;
+		this.modificationCount++;
 	}
 
 	/**
 	 * Reads {@code numberOfBytes} bytes from the given {@code address} If data is
 	 * not present in the data structure it will be read as 0x00
 	 * 
-	 * This method uses an index and binary search to identify the hex file lines.
+	 * This method uses an index and binary search to identify the first hex file
+	 * line. The following lines are read in address order.
 	 * 
 	 * @param address       must be positive
 	 * @param numberOfBytes must be positive
@@ -184,45 +627,134 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 			throw new IllegalArgumentException("Number of bytes needs to be positive!");
 		}
 
+		HexMetricsListener metrics = HexMetrics.getListener();
+		long start = metrics == null ? 0 : System.nanoTime();
 		byte[] result = new byte[numberOfBytes];
-		int readBytes = 0;
+		long endAddress = address + numberOfBytes;
 
 		setupIndex();
 
-		while (readBytes < numberOfBytes) {
-			long readAddress = address + readBytes;
-			Optional<HexFileLine> optLine = this.index.findLineByAddress(readAddress);
-			if (!optLine.isPresent()) {
-				result[readBytes++] = 0;
-				continue;
-			}
-
-			readBytes += optLine.get().readBytes(result, readBytes, readAddress, numberOfBytes - readBytes);
+		// bytes in gaps stay 0x00
+		for (int i = index.ceilingIndexOf(address); i < index.size()
+				&& index.getStartAddress(i) < endAddress; i++) {
+			long from = Math.max(address, index.getStartAddress(i));
+			long to = Math.min(endAddress, index.getEndAddress(i));
+			index.getLine(i).readBytes(result, (int) (from - address), from, (int) (to - from));
 		}
 
+		if (metrics != null) {
+			metrics.bytesRead(numberOfBytes, System.nanoTime() - start);
+		}
 		return result;
 	}
 
 	private void setupIndex() {
 		if (this.index == null) {
 			this.index = new HexLineIndex(this);
+		} else {
+			this.index.sweepDirtyRanges();
 		}
 	}
 
 	/**
-	 * Should be called whenever the records have been manually modified.
+	 * @return the up to date index of the data records
+	 */
+	HexLineIndex getIndex() {
+		setupIndex();
+		return this.index;
+	}
+
+	/**
+	 * Creates an immutable view of the current data which can be read by any
+	 * number of threads without locking. Records which have not been modified
+	 * since the previous snapshot share their data with it, so a writer can
+	 * cheaply publish a new view after each modification, e.g. through a
+	 * volatile field.
+	 * 
+	 * Modifications of the arrays returned by {@link HexFileLine#getData()} are
+	 * not detected; use {@link #updateBytes(long, byte[])} instead.
+	 * 
+	 * @return view of the data at the time of the call
+	 */
+	public HexImageView snapshot() {
+		this.lastSnapshot = HexImageView.of(getIndex(), this.lastSnapshot);
+		return this.lastSnapshot;
+	}
+
+	/**
+	 * @return the index or null if it has not been built yet or is not up to
+	 *         date
+	 */
+	HexLineIndex peekIndex() {
+		HexLineIndex index = this.index;
+		return index == null || index.isDirty() ? null : index;
+	}
+
+	/**
+	 * Rebuilds the index. This is not required after modifications of the
+	 * records because the index is updated automatically.
 	 */
 	public void refreshIndex() {
 		this.index = new HexLineIndex(this);
 	}
 
 	/**
-	 * Finds the first HexFileLine which contains the given address.
+	 * Called after records have been inserted without reporting them one by one.
+	 */
+	void recordsSpliced() {
+		this.modificationCount++;
+	}
+
+	/**
+	 * @return counter which changes whenever records are added, removed or moved;
+	 *         writes of data bytes within existing records are not counted
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	void recordAdded(HexFileLine l) {
+		this.modificationCount++;
+		if (this.index != null) {
+			this.index.lineAdded(l);
+		}
+	}
+
+	void recordRemoved(HexFileLine l) {
+		this.modificationCount++;
+		if (this.index != null) {
+			this.index.lineRemoved(l, l.getFullStartAddress(), l.getData().length, l.getType());
+		}
+	}
+
+	void recordChanged(HexFileLine l, long oldStartAddress, int oldLength, RecordType oldType,
+			long oldExtensionOffset) {
+		this.modificationCount++;
+		if (this.index == null) {
+			return;
+		}
+
+		if (HexFileBuilder.isAddressExtension(oldType) || HexFileBuilder.isAddressExtension(l.getType())) {
+			long newExtensionOffset = l.getExtendedAddressOffset();
+			if (oldType != l.getType() || newExtensionOffset != oldExtensionOffset) {
+				// moves the lines which refer to the extension from one window to the other
+				this.index.markDirty(oldExtensionOffset, oldExtensionOffset + EXTENSION_WINDOW);
+				this.index.markDirty(newExtensionOffset, newExtensionOffset + EXTENSION_WINDOW);
+			}
+		}
+		this.index.lineRemoved(l, oldStartAddress, oldLength, oldType);
+		this.index.lineAdded(l);
+	}
+
+	/**
+	 * Finds the first data HexFileLine which contains the given address.
+	 * 
+	 * This method uses the index and binary search.
 	 * @param address The address to search for
 	 * @return An Optional which is present if the given address has been defined at least once and returns the first occurence within the records.
 	 */
 	public Optional<HexFileLine> findLineByAddress(long address) {
-		return records.stream().filter(l -> l.containsAddress(address)).findFirst();
+		return getIndex().findLineByAddress(address);
 	}
 
 	public void updateBytes(long address, byte[] bs) {
@@ -230,21 +762,32 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 			throw new IllegalArgumentException("Address needs to be positive!");
 		}
 
+		HexMetricsListener metrics = HexMetrics.getListener();
+		long start = metrics == null ? 0 : System.nanoTime();
+		int recordCount = metrics == null ? 0 : records.size();
 		int writtenBytes = 0;
 
+		// the gaps are filled after the loop, so the index stays unchanged until then
 		setupIndex();
-
+		HexLineIndex.GapFill fill = this.index.new GapFill();
 		while (writtenBytes < bs.length) {
 			long writeAddress = address + writtenBytes;
-			Optional<HexFileLine> optLine = this.index.findLineByAddress(writeAddress);
+			int segment = this.index.indexOf(writeAddress);
 
-			if (!optLine.isPresent()) {
-				writtenBytes += this.index.createLineInGap(writeAddress, writtenBytes, bs);
+			if (segment < 0) {
+				writtenBytes += fill.add(writeAddress, writtenBytes, bs);
 			} else {
-				HexFileLine line = optLine.get();
-				writtenBytes += line.updateBytes(writeAddress, writtenBytes, bs);
+				int maxNumberOfBytes = (int) Math.min(bs.length - writtenBytes,
+						this.index.getEndAddress(segment) - writeAddress);
+				writtenBytes += this.index.getLine(segment).updateBytes(writeAddress, writtenBytes, bs,
+						maxNumberOfBytes);
 			}
 		}
+		fill.apply();
+
+		if (metrics != null) {
+			metrics.bytesUpdated(bs.length, records.size() - recordCount, System.nanoTime() - start);
+		}
 	}
 
 	/**
@@ -264,7 +807,48 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 	 * @return true if the data has been defined for address, false otherwise
 	 */
 	public boolean isDefined(long address) {
-		return findLineByAddress(address).isPresent();
+		return getIndex().indexOf(address) >= 0;
+	}
+
+	/**
+	 * @return all address ranges which are defined by data records
+	 */
+	public AddressRangeSet getDefinedRanges() {
+		return getDefinedRanges(0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Determines the defined address ranges within {@code [from, to)}. The
+	 * returned ranges are clipped to {@code [from, to)}.
+	 * 
+	 * @param from first address of interest
+	 * @param to   address after the last address of interest
+	 * @return the defined address ranges within {@code [from, to)}
+	 */
+	public AddressRangeSet getDefinedRanges(long from, long to) {
+		HexLineIndex index = getIndex();
+		AddressRangeSet.Builder builder = new AddressRangeSet.Builder();
+		for (int i = index.ceilingIndexOf(from); i < index.size() && index.getStartAddress(i) < to; i++) {
+			builder.add(Math.max(from, index.getStartAddress(i)), Math.min(to, index.getEndAddress(i)));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Counts the defined bytes within {@code [from, to)}. The range is fully
+	 * defined if the result equals {@code to - from}.
+	 * 
+	 * @param from first address of interest
+	 * @param to   address after the last address of interest
+	 * @return number of defined bytes within {@code [from, to)}
+	 */
+	public long coverage(long from, long to) {
+		HexLineIndex index = getIndex();
+		long covered = 0;
+		for (int i = index.ceilingIndexOf(from); i < index.size() && index.getStartAddress(i) < to; i++) {
+			covered += Math.min(to, index.getEndAddress(i)) - Math.max(from, index.getStartAddress(i));
+		}
+		return covered;
 	}
 
 	public short getMaximumLineByteCount() {
@@ -279,9 +863,43 @@ public class IntelHexFile implements Iterable<Entry<Long, Byte>> {
 		return hexFormat;
 	}
 
+	/**
+	 * Iterates over all defined bytes in address order. Every byte is returned as
+	 * separate entry; prefer {@link #cursor()} or {@link #iterateBlocks()} for
+	 * large files.
+	 * 
+	 * The iterator reads the current records. Bytes written into existing
+	 * records are returned with their new value; if records are added, removed
+	 * or moved while iterating, the iterator throws a
+	 * {@link java.util.ConcurrentModificationException}.
+	 */
 	@Override
 	public Iterator<Entry<Long, Byte>> iterator() {
 		HexFileIterator it = new HexFileIterator(this);
 		return it;
 	}
+
+	/**
+	 * Creates a cursor over all defined bytes in address order which does not
+	 * allocate objects per byte. The records must not be modified while the
+	 * cursor is used.
+	 * 
+	 * @return cursor positioned before the first byte
+	 */
+	public ByteCursor cursor() {
+		return new ByteCursor(getIndex());
+	}
+
+	/**
+	 * Iterates over the contiguous blocks of defined bytes in address order.
+	 * Adjacent records are merged into one block of at most 1 MiB; longer runs
+	 * are returned as consecutive blocks. The data of a block is only
+	 * valid until the next block is requested and the records must not be
+	 * modified while iterating.
+	 * 
+	 * @return iterable over the data blocks
+	 */
+	public Iterable<DataBlock> iterateBlocks() {
+		return () -> new DataBlockIterator(getIndex());
+	}
 }
@@ -0,0 +1,124 @@
+package net.alenzen.intelHex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes chunks of data with ascending addresses directly as records without
+ * building an {@link IntelHexFile}. Address extension records are written only
+ * when the data leaves the 64 KiB window of the current extension. The writer
+ * works in constant memory.
+ *
+ * {@link #close()} writes the end of file record and closes the channel.
+ */
+public class IntelHexWriter implements Closeable {
+	private final WritableByteChannel channel;
+	private final HexRecordEncoder encoder;
+	private final HexLineFactory<IOException> factory;
+	private byte[] transferBuffer = null;
+	private boolean closed = false;
+
+	/**
+	 * Creates a writer with {@link IntelHexFile#BYTE_COUNT_32} bytes per record
+	 * and the default {@link WriteOptions}.
+	 */
+	public IntelHexWriter(WritableByteChannel channel, HexFormat format) {
+		this(channel, format, IntelHexFile.BYTE_COUNT_32, new WriteOptions());
+	}
+
+	/**
+	 * @param channel              receives the records
+	 * @param format               determines the type of the address extension
+	 *                             records
+	 * @param maximumLineByteCount maximum number of data bytes per record
+	 * @param options              line terminator and buffer settings
+	 */
+	public IntelHexWriter(WritableByteChannel channel, HexFormat format, short maximumLineByteCount,
+			WriteOptions options) {
+		this.channel = channel;
+		this.encoder = new HexRecordEncoder(channel, options);
+		this.factory = new HexLineFactory<IOException>(format, maximumLineByteCount,
+				new HexLineFactory.Sink<IOException>() {
+					@Override
+					public void data(int address, byte[] data, int offset, int length) throws IOException {
+						encoder.write(address, RecordType.DATA, data, offset, length);
+					}
+
+					@Override
+					public void extension(RecordType type, int extension) throws IOException {
+						encoder.write(0, type, new byte[] { (byte) (extension >>> 8), (byte) extension }, 0, 2);
+					}
+				});
+	}
+
+	public void write(long address, byte[] data) throws IOException {
+		write(address, data, 0, data.length);
+	}
+
+	/**
+	 * Writes {@code data[offset, offset + length)} starting at {@code address}.
+	 * The address must not be lower than the end of the previously written data.
+	 *
+	 * @throws IllegalArgumentException if the address is lower than the end of
+	 *                                  the previous data or cannot be represented
+	 *                                  in the format
+	 */
+	public void write(long address, byte[] data, int offset, int length) throws IOException {
+		ensureOpen();
+		factory.add(address, data, offset, length);
+	}
+
+	/**
+	 * Writes the remaining bytes of the buffer starting at {@code address}. The
+	 * position of the buffer is moved to its limit.
+	 *
+	 * @see #write(long, byte[], int, int)
+	 */
+	public void write(long address, ByteBuffer data) throws IOException {
+		ensureOpen();
+		if (data.hasArray()) {
+			int l = data.remaining();
+			factory.add(address, data.array(), data.arrayOffset() + data.position(), l);
+			data.position(data.limit());
+			return;
+		}
+
+		if (transferBuffer == null) {
+			transferBuffer = new byte[WriteOptions.DEFAULT_BUFFER_SIZE];
+		}
+		while (data.hasRemaining()) {
+			int l = Math.min(data.remaining(), transferBuffer.length);
+			data.get(transferBuffer, 0, l);
+			factory.add(address, transferBuffer, 0, l);
+			address += l;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Writer has been closed!");
+		}
+	}
+
+	/**
+	 * Writes the end of file record, flushes the buffered records and closes the
+	 * channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		try {
+			factory.finish();
+			encoder.write(0, RecordType.END_OF_FILE, new byte[0], 0, 0);
+			encoder.flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package net.alenzen.intelHex;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Commits the measurements as Flight Recorder events. Only created through
+ * {@link HexMetrics#jfrListener()}.
+ */
+class JfrMetricsListener implements HexMetricsListener {
+	@Override
+	public void parsed(ParseMetrics metrics) {
+		ParseEvent e = new ParseEvent();
+		if (e.shouldCommit()) {
+			e.records = metrics.getRecords();
+			e.bytes = metrics.getBytes();
+			e.errors = metrics.getErrorCount();
+			e.time = metrics.getNanos();
+			e.readTime = metrics.getReadNanos();
+			e.decodeTime = metrics.getDecodeNanos();
+			e.linkTime = metrics.getLinkNanos();
+			e.commit();
+		}
+	}
+
+	@Override
+	public void written(long records, long bytes, long nanos) {
+		WriteEvent e = new WriteEvent();
+		if (e.shouldCommit()) {
+			e.records = records;
+			e.bytes = bytes;
+			e.time = nanos;
+			e.commit();
+		}
+	}
+
+	@Override
+	public void indexBuilt(int segments, long nanos) {
+		IndexEvent e = new IndexEvent();
+		if (e.shouldCommit()) {
+			e.segments = segments;
+			e.time = nanos;
+			e.commit();
+		}
+	}
+
+	@Override
+	public void bytesRead(int length, long nanos) {
+		ReadBytesEvent e = new ReadBytesEvent();
+		if (e.shouldCommit()) {
+			e.length = length;
+			e.time = nanos;
+			e.commit();
+		}
+	}
+
+	@Override
+	public void bytesUpdated(int length, int linesCreated, long nanos) {
+		UpdateBytesEvent e = new UpdateBytesEvent();
+		if (e.shouldCommit()) {
+			e.length = length;
+			e.linesCreated = linesCreated;
+			e.time = nanos;
+			e.commit();
+		}
+	}
+
+	@Name("net.alenzen.intelHex.Parse")
+	@Label("Hex File Parse")
+	@Category("Intel Hex")
+	static class ParseEvent extends Event {
+		@Label("Records")
+		long records;
+
+		@Label("Input Size")
+		@DataAmount
+		long bytes;
+
+		@Label("Errors")
+		long errors;
+
+		@Label("Parse Time")
+		@Timespan
+		long time;
+
+		@Label("Read Time")
+		@Timespan
+		long readTime;
+
+		@Label("Decode Time")
+		@Timespan
+		long decodeTime;
+
+		@Label("Link Time")
+		@Timespan
+		long linkTime;
+	}
+
+	@Name("net.alenzen.intelHex.Write")
+	@Label("Hex File Write")
+	@Category("Intel Hex")
+	static class WriteEvent extends Event {
+		@Label("Records")
+		long records;
+
+		@Label("Output Size")
+		@DataAmount
+		long bytes;
+
+		@Label("Write Time")
+		@Timespan
+		long time;
+	}
+
+	@Name("net.alenzen.intelHex.IndexBuild")
+	@Label("Hex Index Build")
+	@Category("Intel Hex")
+	static class IndexEvent extends Event {
+		@Label("Segments")
+		int segments;
+
+		@Label("Build Time")
+		@Timespan
+		long time;
+	}
+
+	@Name("net.alenzen.intelHex.ReadBytes")
+	@Label("Hex Read Bytes")
+	@Category("Intel Hex")
+	@Enabled(false)
+	@StackTrace(false)
+	static class ReadBytesEvent extends Event {
+		@Label("Length")
+		int length;
+
+		@Label("Read Time")
+		@Timespan
+		long time;
+	}
+
+	@Name("net.alenzen.intelHex.UpdateBytes")
+	@Label("Hex Update Bytes")
+	@Category("Intel Hex")
+	@Enabled(false)
+	@StackTrace(false)
+	static class UpdateBytesEvent extends Event {
+		@Label("Length")
+		int length;
+
+		@Label("Lines Created")
+		int linesCreated;
+
+		@Label("Update Time")
+		@Timespan
+		long time;
+	}
+}
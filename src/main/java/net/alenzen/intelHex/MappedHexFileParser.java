@@ -0,0 +1,75 @@
+package net.alenzen.intelHex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses a hex file from a read-only memory mapping. Files larger than the
+ * mapping chunk size are mapped region by region; every region except the last
+ * one ends in front of a record boundary so that no record is split.
+ */
+class MappedHexFileParser {
+	private MappedHexFileParser() {
+	}
+
+	static IntelHexFile parse(Path file, ParseOptions options) throws IOException {
+		ParseMetricsCollector metrics = ParseMetricsCollector.start(options.getDiagnosticHandler());
+		HexContentParser parser = HexContentParser.create(options, metrics);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (metrics != null) {
+				metrics.addBytes(size);
+			}
+			long position = 0;
+			while (position < size) {
+				long remaining = size - position;
+				int length = (int) Math.min(remaining, options.getMappingChunkSize());
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+
+				int end = length;
+				if (length < remaining) {
+					end = lastRecordBoundary(buffer, length);
+					if (end == 0) {
+						throw new IOException(String.format(
+								"Record at offset %d is longer than the mapping chunk size of %d bytes.", position,
+								options.getMappingChunkSize()));
+					}
+				}
+
+				if (metrics != null) {
+					metrics.enter(ParseMetricsCollector.Phase.DECODE);
+				}
+				parser.addRecords(buffer, 0, end);
+				if (metrics != null) {
+					metrics.enter(ParseMetricsCollector.Phase.READ);
+				}
+				position += end;
+			}
+		}
+
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.LINK);
+		}
+		IntelHexFile result = parser.build();
+		return metrics == null ? result : metrics.finish(result);
+	}
+
+	/**
+	 * @return index of the last ':' or line terminator within
+	 *         {@code buffer[1, end)}, 0 if there is none
+	 */
+	static int lastRecordBoundary(ByteBuffer buffer, int end) {
+		for (int i = end - 1; i > 0; i--) {
+			if (HexRecordScanner.isRecordBoundary(buffer.get(i))) {
+				return i;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,368 @@
+package net.alenzen.intelHex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse memory image of the data of a hex file. The memory is divided into
+ * pages of a fixed size which are allocated on first write. Each page keeps a
+ * bitmap of the bytes which have been defined.
+ *
+ * Reads, writes and {@link #isDefined(long)} are simple array arithmetic on the
+ * touched pages. Use {@link #of(IntelHexFile)} and
+ * {@link #toIntelHexFile(HexFormat, short)} to convert from and to the record
+ * representation. The image can also be filled directly while parsing, because
+ * it is a {@link HexRecordHandler}.
+ *
+ * Only data is stored; start address records are not part of the image.
+ * Instances are not thread-safe.
+ */
+public class MemoryImage implements HexRecordHandler {
+	public static final int DEFAULT_PAGE_BITS = 12;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final long EMPTY_KEY = -1;
+
+	private final int pageBits;
+	private final int pageSize;
+	private final long pageMask;
+
+	// open addressing hash table: page number -> page
+	private long[] keys;
+	private byte[][] pageData;
+	private long[][] pageDefined;
+	private int size = 0;
+
+	// most recently accessed page
+	private long cachedKey = EMPTY_KEY;
+	private int cachedSlot = -1;
+
+	public MemoryImage() {
+		this(DEFAULT_PAGE_BITS);
+	}
+
+	/**
+	 * @param pageBits the page size is {@code 1 << pageBits} bytes; between 6
+	 *                 and 24
+	 */
+	public MemoryImage(int pageBits) {
+		if (pageBits < 6 || pageBits > 24) {
+			throw new IllegalArgumentException("Page bits need to be between 6 and 24!");
+		}
+
+		this.pageBits = pageBits;
+		this.pageSize = 1 << pageBits;
+		this.pageMask = pageSize - 1;
+		allocateTable(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a memory image of all data records of the hex file. If records
+	 * overlap, the record which comes first in the record list wins like in
+	 * {@link HexLineIndex}.
+	 */
+	public static MemoryImage of(IntelHexFile hexFile) {
+		MemoryImage image = new MemoryImage();
+		List<HexFileLine> records = hexFile.getRecords();
+		for (int i = records.size() - 1; i >= 0; i--) {
+			HexFileLine l = records.get(i);
+			if (l.getType() == RecordType.DATA) {
+				image.updateBytes(l.getFullStartAddress(), l.getData(), 0, l.getData().length);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Creates address sorted records for all defined bytes followed by an end of
+	 * file record.
+	 *
+	 * @param format               format of the address extension records
+	 * @param maximumLineByteCount maximum number of data bytes per record
+	 */
+	public IntelHexFile toIntelHexFile(HexFormat format, short maximumLineByteCount) {
+		List<HexFileLine> records = new ArrayList<HexFileLine>();
+		HexLineFactory<RuntimeException> factory = HexLineFactory.toLines(format, maximumLineByteCount, records::add);
+
+		for (long key : sortedKeys()) {
+			int slot = findSlot(key);
+			byte[] data = pageData[slot];
+			long[] defined = pageDefined[slot];
+			long base = key << pageBits;
+
+			int i = nextDefined(defined, 0);
+			while (i < pageSize) {
+				int end = nextUndefined(defined, i);
+				factory.add(base + i, data, i, end - i);
+				i = nextDefined(defined, end);
+			}
+		}
+		factory.finish();
+
+		records.add(new HexFileLine(0, RecordType.END_OF_FILE, new byte[0], null));
+		IntelHexFile hexFile = new IntelHexFile(records, format);
+		hexFile.setMaximumLineByteCount(maximumLineByteCount);
+		return hexFile;
+	}
+
+	/**
+	 * Reads {@code numberOfBytes} bytes from the given {@code address}. Bytes
+	 * which are not defined are read as 0x00.
+	 */
+	public byte[] readBytes(long address, int numberOfBytes) {
+		if (numberOfBytes < 0) {
+			throw new IllegalArgumentException("Number of bytes needs to be positive!");
+		}
+
+		byte[] result = new byte[numberOfBytes];
+		readBytes(address, result, 0, numberOfBytes);
+		return result;
+	}
+
+	/**
+	 * Reads bytes into {@code target[offset, offset + length)}. Bytes which are
+	 * not defined are read as 0x00.
+	 */
+	public void readBytes(long address, byte[] target, int offset, int length) {
+		checkAddress(address);
+
+		while (length > 0) {
+			int pageOffset = (int) (address & pageMask);
+			int l = Math.min(length, pageSize - pageOffset);
+			int slot = findSlot(address >>> pageBits);
+			if (slot < 0) {
+				Arrays.fill(target, offset, offset + l, (byte) 0);
+			} else {
+				// undefined bytes of a page are always 0
+				System.arraycopy(pageData[slot], pageOffset, target, offset, l);
+			}
+
+			address += l;
+			offset += l;
+			length -= l;
+		}
+	}
+
+	/**
+	 * @return the byte at the given address or 0x00 if it is not defined
+	 */
+	public byte readByte(long address) {
+		checkAddress(address);
+		int slot = findSlot(address >>> pageBits);
+		return slot < 0 ? 0 : pageData[slot][(int) (address & pageMask)];
+	}
+
+	public void updateBytes(long address, byte[] bs) {
+		updateBytes(address, bs, 0, bs.length);
+	}
+
+	/**
+	 * Writes {@code bs[offset, offset + length)} starting at the given address
+	 * and marks the bytes as defined.
+	 */
+	public void updateBytes(long address, byte[] bs, int offset, int length) {
+		checkAddress(address);
+
+		while (length > 0) {
+			int pageOffset = (int) (address & pageMask);
+			int l = Math.min(length, pageSize - pageOffset);
+			int slot = findOrCreateSlot(address >>> pageBits);
+			System.arraycopy(bs, offset, pageData[slot], pageOffset, l);
+			setDefined(pageDefined[slot], pageOffset, pageOffset + l);
+
+			address += l;
+			offset += l;
+			length -= l;
+		}
+	}
+
+	/**
+	 * @return true if the byte at the given address has been written
+	 */
+	public boolean isDefined(long address) {
+		checkAddress(address);
+		int slot = findSlot(address >>> pageBits);
+		if (slot < 0) {
+			return false;
+		}
+
+		int pageOffset = (int) (address & pageMask);
+		return (pageDefined[slot][pageOffset >>> 6] & (1L << pageOffset)) != 0;
+	}
+
+	/**
+	 * @return number of defined bytes
+	 */
+	public long getDefinedByteCount() {
+		long count = 0;
+		for (int slot = 0; slot < keys.length; slot++) {
+			if (keys[slot] != EMPTY_KEY) {
+				for (long bits : pageDefined[slot]) {
+					count += Long.bitCount(bits);
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void onData(long fullAddress, byte[] buffer, int offset, int length) {
+		updateBytes(fullAddress, buffer, offset, length);
+	}
+
+	private static void checkAddress(long address) {
+		if (address < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+	}
+
+	private static void setDefined(long[] defined, int from, int to) {
+		int firstWord = from >>> 6;
+		int lastWord = (to - 1) >>> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+
+		if (firstWord == lastWord) {
+			defined[firstWord] |= firstMask & lastMask;
+			return;
+		}
+
+		defined[firstWord] |= firstMask;
+		for (int i = firstWord + 1; i < lastWord; i++) {
+			defined[i] = -1L;
+		}
+		defined[lastWord] |= lastMask;
+	}
+
+	/**
+	 * @return index of the next defined byte at or after {@code from}, the page
+	 *         size if there is none
+	 */
+	private int nextDefined(long[] defined, int from) {
+		int word = from >>> 6;
+		if (word >= defined.length) {
+			return pageSize;
+		}
+
+		long bits = defined[word] & (-1L << from);
+		while (bits == 0) {
+			if (++word == defined.length) {
+				return pageSize;
+			}
+			bits = defined[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * @return index of the next undefined byte at or after {@code from}, the page
+	 *         size if there is none
+	 */
+	private int nextUndefined(long[] defined, int from) {
+		int word = from >>> 6;
+		if (word >= defined.length) {
+			return pageSize;
+		}
+
+		long bits = ~defined[word] & (-1L << from);
+		while (bits == 0) {
+			if (++word == defined.length) {
+				return pageSize;
+			}
+			bits = ~defined[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	private long[] sortedKeys() {
+		long[] sorted = new long[size];
+		int i = 0;
+		for (long key : keys) {
+			if (key != EMPTY_KEY) {
+				sorted[i++] = key;
+			}
+		}
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @return slot of the page or -1 if the page does not exist
+	 */
+	private int findSlot(long key) {
+		if (key == cachedKey) {
+			return cachedSlot;
+		}
+
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY_KEY) {
+			if (keys[slot] == key) {
+				cachedKey = key;
+				cachedSlot = slot;
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int findOrCreateSlot(long key) {
+		int slot = findSlot(key);
+		if (slot >= 0) {
+			return slot;
+		}
+
+		if ((size + 1) * 4 > keys.length * 3) {
+			rehash(keys.length * 2);
+		}
+
+		slot = insertKey(key);
+		pageData[slot] = new byte[pageSize];
+		pageDefined[slot] = new long[Math.max(1, pageSize >>> 6)];
+		size++;
+		cachedKey = key;
+		cachedSlot = slot;
+		return slot;
+	}
+
+	private int insertKey(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY_KEY) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		return slot;
+	}
+
+	private void allocateTable(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY_KEY);
+		pageData = new byte[capacity][];
+		pageDefined = new long[capacity][];
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		byte[][] oldData = pageData;
+		long[][] oldDefined = pageDefined;
+
+		allocateTable(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY_KEY) {
+				int slot = insertKey(oldKeys[i]);
+				pageData[slot] = oldData[i];
+				pageDefined[slot] = oldDefined[i];
+			}
+		}
+
+		cachedKey = EMPTY_KEY;
+		cachedSlot = -1;
+	}
+}
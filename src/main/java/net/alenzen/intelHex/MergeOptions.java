@@ -0,0 +1,77 @@
+package net.alenzen.intelHex;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Options for {@link IntelHexFile#merge(java.util.List, MergeOptions)}.
+ */
+public class MergeOptions {
+	private OverlapPolicy overlapPolicy = OverlapPolicy.FAIL;
+	private HexFormat format = null;
+	private short maximumLineByteCount = IntelHexFile.BYTE_COUNT_32;
+	private ForkJoinPool forkJoinPool = null;
+	private Consumer<AddressRangeSet> conflictHandler = null;
+
+	public OverlapPolicy getOverlapPolicy() {
+		return overlapPolicy;
+	}
+
+	public void setOverlapPolicy(OverlapPolicy overlapPolicy) {
+		this.overlapPolicy = overlapPolicy;
+	}
+
+	public HexFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @param format format of the merged file; null uses the format of the
+	 *               inputs with the largest address range
+	 */
+	public void setFormat(HexFormat format) {
+		this.format = format;
+	}
+
+	public short getMaximumLineByteCount() {
+		return maximumLineByteCount;
+	}
+
+	/**
+	 * @param maximumLineByteCount maximum number of data bytes per record of the
+	 *                             merged file
+	 */
+	public void setMaximumLineByteCount(short maximumLineByteCount) {
+		if (maximumLineByteCount <= 0 || maximumLineByteCount > IntelHexFile.BYTE_COUNT_MAX) {
+			throw new IllegalArgumentException("Maximum line byte count needs to be between 1 and 255!");
+		}
+		this.maximumLineByteCount = maximumLineByteCount;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * Enables the parallel load phase. The inputs are parsed and indexed on the
+	 * given pool before they are merged.
+	 *
+	 * @param forkJoinPool pool to load the inputs on; null loads sequentially
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	public Consumer<AddressRangeSet> getConflictHandler() {
+		return conflictHandler;
+	}
+
+	/**
+	 * @param conflictHandler receives the address ranges which are defined with
+	 *                        different values if the merge does not fail; may
+	 *                        be null
+	 */
+	public void setConflictHandler(Consumer<AddressRangeSet> conflictHandler) {
+		this.conflictHandler = conflictHandler;
+	}
+}
@@ -0,0 +1,23 @@
+package net.alenzen.intelHex;
+
+public class OverlapException extends Exception {
+	private final AddressRangeSet conflicts;
+
+	public OverlapException(AddressRangeSet conflicts) {
+		super("Files define different values for " + conflicts);
+		this.conflicts = conflicts;
+	}
+
+	/**
+	 * @return the address ranges which are defined with different values
+	 */
+	public AddressRangeSet getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 3177472958417730962L;
+
+}
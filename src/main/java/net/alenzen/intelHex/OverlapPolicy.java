@@ -0,0 +1,21 @@
+package net.alenzen.intelHex;
+
+/**
+ * Determines how {@link IntelHexFile#merge(java.util.List, MergeOptions)}
+ * handles addresses which are defined with different values by multiple files.
+ */
+public enum OverlapPolicy {
+	/**
+	 * Conflicting addresses make the merge fail with an
+	 * {@link OverlapException}.
+	 */
+	FAIL,
+	/**
+	 * The value of the file which comes first in the list is used.
+	 */
+	FIRST_WINS,
+	/**
+	 * The value of the file which comes last in the list is used.
+	 */
+	LAST_WINS
+}
@@ -0,0 +1,226 @@
+package net.alenzen.intelHex;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses hex content in parallel. The content is split at record boundaries
+ * into chunks which are decoded independently on a {@link ForkJoinPool}.
+ *
+ * A sequential stitch pass afterwards links the leading records of each chunk
+ * to the last address extension of the previous chunks, determines the format
+ * and replays the parsing errors in file order. The final line numbers are
+ * applied in parallel again. The result is the same as the one of
+ * {@link HexFileBuilder}.
+ */
+class ParallelHexFileParser implements HexContentParser {
+	private final ParseDiagnosticHandler handler;
+	private final ParseMetricsCollector metrics;
+	private final ParseDiagnostic conflict = new ParseDiagnostic();
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final ArrayList<HexFileLine> lines = new ArrayList<HexFileLine>();
+	private HexFormat format = HexFormat.I8HEX;
+	private HexFileLine latestAddressExtension = null;
+	private long linenumber = 0;
+
+	/**
+	 * @param metrics receives the time of the stitch pass as linking; may be
+	 *                null
+	 */
+	ParallelHexFileParser(ParseOptions options, ParseDiagnosticHandler handler, ParseMetricsCollector metrics) {
+		this.handler = handler;
+		this.metrics = metrics;
+		this.pool = options.getForkJoinPool();
+		this.chunkSize = options.getParallelChunkSize();
+	}
+
+	@Override
+	public void addRecords(ByteBuffer content, int from, int to) {
+		List<Chunk> chunks = split(content, from, to);
+
+		List<ForkJoinTask<?>> decodeTasks = new ArrayList<>(chunks.size());
+		for (Chunk c : chunks) {
+			decodeTasks.add(ForkJoinTask.adapt(c::decode));
+		}
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(decodeTasks)));
+
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.LINK);
+		}
+		int numberOfLines = 0;
+		for (Chunk c : chunks) {
+			stitch(c);
+			numberOfLines += c.lines.size();
+		}
+		if (metrics != null) {
+			metrics.enter(ParseMetricsCollector.Phase.DECODE);
+		}
+
+		List<ForkJoinTask<?>> renumberTasks = new ArrayList<>(chunks.size());
+		for (Chunk c : chunks) {
+			renumberTasks.add(ForkJoinTask.adapt(c::renumber));
+		}
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(renumberTasks)));
+
+		lines.ensureCapacity(lines.size() + numberOfLines);
+		for (Chunk c : chunks) {
+			lines.addAll(c.lines);
+		}
+	}
+
+	private List<Chunk> split(ByteBuffer content, int from, int to) {
+		List<Chunk> chunks = new ArrayList<>();
+		int start = from;
+		while (start < to) {
+			int end = (int) Math.min((long) start + chunkSize, to);
+			while (end < to && !HexRecordScanner.isRecordBoundary(content.get(end))) {
+				end++;
+			}
+			chunks.add(new Chunk(content, start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	private void stitch(Chunk c) {
+		c.base = linenumber;
+
+		if (latestAddressExtension != null) {
+			for (int i = 0; i < c.leadingLines; i++) {
+				c.lines.get(i).setAddressExtension(latestAddressExtension);
+			}
+		}
+
+		if (c.lastAddressExtension != null) {
+			latestAddressExtension = c.lastAddressExtension;
+		}
+
+		if (format != HexFormat.I8HEX && c.format != HexFormat.I8HEX && c.format != format) {
+			replayWithForeignFormat(c);
+		} else {
+			if (format == HexFormat.I8HEX) {
+				format = c.format;
+			}
+			replay(c);
+		}
+
+		linenumber += c.recordCount;
+	}
+
+	/**
+	 * The chunk uses the same format as the previous chunks. Only the records
+	 * which did not match the first format of the chunk are conflicts.
+	 */
+	private void replay(Chunk c) {
+		for (ParseDiagnostic d : c.diagnostics) {
+			if (d.getCode() == ParseErrorCode.FORMAT_CONFLICT) {
+				d.formats(format, HexFormat.determineFormat(d.getRecord().getType()));
+			}
+			d.addLineNumberOffset(c.base);
+			handler.report(d);
+		}
+	}
+
+	/**
+	 * The first format of the chunk differs from the format of the previous
+	 * chunks. All records need to be checked against the global format.
+	 */
+	private void replayWithForeignFormat(Chunk c) {
+		int di = 0;
+		for (HexFileLine l : c.lines) {
+			while (di < c.diagnostics.size() && c.diagnostics.get(di).getLineNumber() <= l.getLineNumber()) {
+				logDecodingError(c, c.diagnostics.get(di++));
+			}
+
+			HexFormat formatFromLine = HexFormat.determineFormat(l.getType());
+			if (formatFromLine != HexFormat.I8HEX && formatFromLine != format) {
+				handler.report(HexFileBuilder.formatConflict(conflict, c.base + l.getLineNumber(), null, l, format,
+						formatFromLine));
+			}
+		}
+
+		while (di < c.diagnostics.size()) {
+			logDecodingError(c, c.diagnostics.get(di++));
+		}
+	}
+
+	private void logDecodingError(Chunk c, ParseDiagnostic d) {
+		if (d.getCode() != ParseErrorCode.FORMAT_CONFLICT) {
+			d.addLineNumberOffset(c.base);
+			handler.report(d);
+		}
+	}
+
+	@Override
+	public IntelHexFile build() {
+		return new IntelHexFile(lines, format);
+	}
+
+	private static class Chunk {
+		private final ByteBuffer content;
+		private final int from;
+		private final int to;
+		private final List<HexFileLine> lines = new ArrayList<HexFileLine>();
+		/**
+		 * Deferred errors of the decoder and records which conflict with the
+		 * format of the chunk, in file order.
+		 */
+		private final List<ParseDiagnostic> diagnostics = new ArrayList<ParseDiagnostic>();
+		private long recordCount = 0;
+		/**
+		 * Number of lines decoded before the first address extension of the chunk.
+		 */
+		private int leadingLines = 0;
+		private HexFileLine lastAddressExtension = null;
+		private HexFormat format = HexFormat.I8HEX;
+		private long base = 0;
+
+		Chunk(ByteBuffer content, int from, int to) {
+			this.content = content;
+			this.from = from;
+			this.to = to;
+		}
+
+		void decode() {
+			HexRecordDecoder decoder = new HexRecordDecoder(d -> diagnostics.add(d.copy()));
+			HexRecordScanner scanner = new HexRecordScanner(content, from, to);
+			while (scanner.next()) {
+				recordCount++;
+				if (!decoder.decode(recordCount, content, scanner.getRecordStart(), scanner.getRecordEnd())) {
+					continue;
+				}
+
+				HexFileLine l = decoder.toHexFileLine(recordCount, lastAddressExtension);
+				if (lastAddressExtension == null) {
+					leadingLines++;
+				}
+				if (HexFileBuilder.isAddressExtension(l.getType())) {
+					lastAddressExtension = l;
+				}
+
+				HexFormat formatFromLine = HexFormat.determineFormat(l.getType());
+				if (format == HexFormat.I8HEX) {
+					format = formatFromLine;
+				} else if (formatFromLine != HexFormat.I8HEX && formatFromLine != format) {
+					diagnostics.add(HexFileBuilder.formatConflict(new ParseDiagnostic(), recordCount, null, l, null, null));
+				}
+
+				lines.add(l);
+			}
+		}
+
+		void renumber() {
+			if (base == 0) {
+				return;
+			}
+
+			for (HexFileLine l : lines) {
+				l.setLineNumber(base + l.getLineNumber());
+			}
+		}
+	}
+}
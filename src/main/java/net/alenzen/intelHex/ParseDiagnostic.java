@@ -0,0 +1,186 @@
+package net.alenzen.intelHex;
+
+/**
+ * An error which has been found while parsing. The line and the message are
+ * only created when they are requested, so ignoring a diagnostic costs
+ * nothing.
+ *
+ * The parsers reuse a single instance per parse. A diagnostic passed to
+ * {@link ParseDiagnosticHandler#report(ParseDiagnostic)} is only valid during
+ * the call; use {@link #copy()} to keep it.
+ */
+public final class ParseDiagnostic {
+	private ParseErrorCode code;
+	private long lineNumber;
+	private int column;
+
+	// raw record within the input, or the decoded record
+	private HexRecordDecoder.Input input;
+	private int origin;
+	private int start;
+	private int end;
+	private boolean prefixColon;
+	private HexFileLine record;
+	private String line;
+
+	// arguments of the message
+	private int detailStart;
+	private int detailEnd;
+	private String detail;
+	private int recordType;
+	private HexFormat expectedFormat;
+	private HexFormat foundFormat;
+
+	ParseDiagnostic() {
+	}
+
+	/**
+	 * Resets the diagnostic to an error of the record in
+	 * {@code input[start, end)}.
+	 */
+	ParseDiagnostic set(ParseErrorCode code, long lineNumber, int column, HexRecordDecoder.Input input, int origin,
+			int start, int end, boolean prefixColon) {
+		this.code = code;
+		this.lineNumber = lineNumber;
+		this.column = column;
+		this.input = input;
+		this.origin = origin;
+		this.start = start;
+		this.end = end;
+		this.prefixColon = prefixColon;
+		this.record = null;
+		this.line = null;
+		this.detail = null;
+		return this;
+	}
+
+	/**
+	 * Resets the diagnostic to an error of a line which is already available as
+	 * string or of a decoded record.
+	 */
+	ParseDiagnostic set(ParseErrorCode code, long lineNumber, int column, String line, HexFileLine record) {
+		set(code, lineNumber, column, null, 0, -1, -1, false);
+		this.line = line;
+		this.record = record;
+		return this;
+	}
+
+	ParseDiagnostic invalidSymbols(int detailStart, int detailEnd) {
+		this.detailStart = detailStart;
+		this.detailEnd = detailEnd;
+		return this;
+	}
+
+	ParseDiagnostic recordType(int recordType) {
+		this.recordType = recordType;
+		return this;
+	}
+
+	ParseDiagnostic formats(HexFormat expected, HexFormat found) {
+		this.expectedFormat = expected;
+		this.foundFormat = found;
+		return this;
+	}
+
+	void addLineNumberOffset(long offset) {
+		this.lineNumber += offset;
+	}
+
+	public ParseErrorCode getCode() {
+		return code;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return 1 based column within the line at which the error has been found
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * @return index of the first character of the record within the parsed
+	 *         input: the line for {@link java.io.Reader} input, the buffer for
+	 *         {@link java.nio.ByteBuffer} input; -1 if the diagnostic refers to a
+	 *         decoded record
+	 */
+	public int getStart() {
+		return start < 0 ? start : start - origin;
+	}
+
+	/**
+	 * @return index after the last character of the record, see
+	 *         {@link #getStart()}
+	 */
+	public int getEnd() {
+		return end < 0 ? end : end - origin;
+	}
+
+	/**
+	 * @return the line as it has been passed to {@link IParsingError}
+	 */
+	public String getLine() {
+		if (line == null) {
+			line = record != null ? record.toString() : input.toString(start, end, prefixColon);
+		}
+		return line;
+	}
+
+	public String getMessage() {
+		switch (code) {
+		case MISSING_COLON:
+			return "Line does not start with ':'. Added : and try to continue.";
+		case TOO_SHORT:
+			return "Line does not meet the minimal length of 10. Skipping line.";
+		case INVALID_CHARACTER:
+			return String.format("Invalid hex symbols: For input string: \"%s\"\nSkipping line.", getDetail());
+		case UNKNOWN_RECORD_TYPE:
+			return String.format("Cannot determine record type: %s.%d\nSkipping line.", RecordType.class.getName(),
+					recordType);
+		case FORMAT_CONFLICT:
+			return String.format("HexFile format is not clearly determinable. Expected %s but found record for %s",
+					expectedFormat.name(), foundFormat.name());
+		default:
+			return code.name();
+		}
+	}
+
+	private String getDetail() {
+		if (detail == null) {
+			detail = input.toString(detailStart, detailEnd, false);
+		}
+		return detail;
+	}
+
+	HexFileLine getRecord() {
+		return record;
+	}
+
+	/**
+	 * Creates a copy which stays valid after the call of the handler. The line
+	 * is copied; the message is still created on request.
+	 */
+	public ParseDiagnostic copy() {
+		ParseDiagnostic c = new ParseDiagnostic();
+		c.code = code;
+		c.lineNumber = lineNumber;
+		c.column = column;
+		c.origin = origin;
+		c.start = start;
+		c.end = end;
+		c.line = getLine();
+		c.detail = code == ParseErrorCode.INVALID_CHARACTER ? getDetail() : null;
+		c.recordType = recordType;
+		c.expectedFormat = expectedFormat;
+		c.foundFormat = foundFormat;
+		return c;
+	}
+
+	@Override
+	public String toString() {
+		return "line " + lineNumber + ", column " + column + ": " + getMessage();
+	}
+}
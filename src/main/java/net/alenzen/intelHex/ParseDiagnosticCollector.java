@@ -0,0 +1,66 @@
+package net.alenzen.intelHex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the first diagnostics of a parse and counts all of them, so that
+ * heavily damaged input does not fill the heap with messages.
+ */
+public class ParseDiagnosticCollector implements ParseDiagnosticHandler {
+	private final int capacity;
+	private final List<ParseDiagnostic> diagnostics = new ArrayList<ParseDiagnostic>();
+	private final long[] counts = new long[ParseErrorCode.values().length];
+	private long count = 0;
+
+	/**
+	 * @param capacity maximum number of kept diagnostics
+	 */
+	public ParseDiagnosticCollector(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity needs to be positive!");
+		}
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void report(ParseDiagnostic diagnostic) {
+		count++;
+		counts[diagnostic.getCode().ordinal()]++;
+		if (diagnostics.size() < capacity) {
+			diagnostics.add(diagnostic.copy());
+		}
+	}
+
+	/**
+	 * @return the first {@link #getCapacity()} diagnostics in file order
+	 */
+	public List<ParseDiagnostic> getDiagnostics() {
+		return Collections.unmodifiableList(diagnostics);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of reported diagnostics including the ones which have not
+	 *         been kept
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public long getCount(ParseErrorCode code) {
+		return counts[code.ordinal()];
+	}
+
+	/**
+	 * @return true if diagnostics have been dropped because the capacity was
+	 *         exceeded
+	 */
+	public boolean isTruncated() {
+		return count > diagnostics.size();
+	}
+}
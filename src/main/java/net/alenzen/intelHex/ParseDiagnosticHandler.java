@@ -0,0 +1,15 @@
+package net.alenzen.intelHex;
+
+/**
+ * Receives the errors found while parsing as structured
+ * {@link ParseDiagnostic}s. In contrast to {@link IParsingError} no message is
+ * formatted unless the handler requests it.
+ */
+@FunctionalInterface
+public interface ParseDiagnosticHandler {
+	/**
+	 * @param diagnostic only valid during the call, see
+	 *                   {@link ParseDiagnostic#copy()}
+	 */
+	void report(ParseDiagnostic diagnostic);
+}
@@ -0,0 +1,18 @@
+package net.alenzen.intelHex;
+
+/**
+ * Codes of the errors which are reported while parsing, see
+ * {@link ParseDiagnostic}.
+ */
+public enum ParseErrorCode {
+	/** a line does not start with ':'; the record is decoded anyway */
+	MISSING_COLON,
+	/** a line is shorter than the smallest record; the line is skipped */
+	TOO_SHORT,
+	/** a record contains characters which are not hex digits; the line is skipped */
+	INVALID_CHARACTER,
+	/** the record type is not defined by the format; the line is skipped */
+	UNKNOWN_RECORD_TYPE,
+	/** the address extension records of different formats are mixed */
+	FORMAT_CONFLICT
+}
@@ -0,0 +1,102 @@
+package net.alenzen.intelHex;
+
+/**
+ * Measurements of a single parse, see
+ * {@link HexMetricsListener#parsed(ParseMetrics)}.
+ *
+ * The total time is split into reading the input, decoding the records and
+ * linking them. Reading covers the {@link java.io.Reader} or the mapping of
+ * the file; page faults of a mapped file occur while decoding. Linking covers
+ * assigning the leading records of parallel chunks to their address extension
+ * and creating the {@link IntelHexFile}; the sequential parser links each
+ * record while decoding it.
+ */
+public final class ParseMetrics {
+	private final long records;
+	private final long bytes;
+	private final long nanos;
+	private final long readNanos;
+	private final long decodeNanos;
+	private final long linkNanos;
+	private final long[] errors;
+
+	ParseMetrics(long records, long bytes, long nanos, long readNanos, long decodeNanos, long linkNanos,
+			long[] errors) {
+		this.records = records;
+		this.bytes = bytes;
+		this.nanos = nanos;
+		this.readNanos = readNanos;
+		this.decodeNanos = decodeNanos;
+		this.linkNanos = linkNanos;
+		this.errors = errors;
+	}
+
+	/**
+	 * @return number of decoded records
+	 */
+	public long getRecords() {
+		return records;
+	}
+
+	/**
+	 * @return number of characters or bytes of the input
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return time spent reading or mapping the input
+	 */
+	public long getReadNanos() {
+		return readNanos;
+	}
+
+	/**
+	 * @return time spent decoding the records
+	 */
+	public long getDecodeNanos() {
+		return decodeNanos;
+	}
+
+	/**
+	 * @return time spent linking the records to their address extensions and
+	 *         the file
+	 */
+	public long getLinkNanos() {
+		return linkNanos;
+	}
+
+	public double getRecordsPerSecond() {
+		return nanos == 0 ? 0 : records * 1e9 / nanos;
+	}
+
+	public double getBytesPerSecond() {
+		return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+	}
+
+	public long getErrorCount(ParseErrorCode code) {
+		return errors[code.ordinal()];
+	}
+
+	/**
+	 * @return number of errors of all codes
+	 */
+	public long getErrorCount() {
+		long sum = 0;
+		for (long e : errors) {
+			sum += e;
+		}
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d records, %d bytes in %.3f ms (read %.3f ms, decode %.3f ms, link %.3f ms), %d errors",
+				records, bytes, nanos / 1e6, readNanos / 1e6, decodeNanos / 1e6, linkNanos / 1e6, getErrorCount());
+	}
+}
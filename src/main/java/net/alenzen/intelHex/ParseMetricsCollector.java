@@ -0,0 +1,94 @@
+package net.alenzen.intelHex;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Counts the errors of a parse by code before passing them on, measures the
+ * phases of the parse and reports the {@link ParseMetrics} to the listener.
+ */
+class ParseMetricsCollector implements ParseDiagnosticHandler {
+	private final HexMetricsListener listener;
+	private final ParseDiagnosticHandler handler;
+	private final long start = System.nanoTime();
+	private final long[] errors = new long[ParseErrorCode.values().length];
+	private long bytes = 0;
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private Phase phase = Phase.READ;
+	private long phaseStart = start;
+
+	/**
+	 * Phases of a parse, see {@link ParseMetrics}.
+	 */
+	enum Phase {
+		READ, DECODE, LINK
+	}
+
+	private ParseMetricsCollector(HexMetricsListener listener, ParseDiagnosticHandler handler) {
+		this.listener = listener;
+		this.handler = handler == null ? IParsingError.VOID : handler;
+	}
+
+	/**
+	 * @return a collector or null if no listener is installed
+	 */
+	static ParseMetricsCollector start(ParseDiagnosticHandler handler) {
+		HexMetricsListener listener = HexMetrics.getListener();
+		return listener == null ? null : new ParseMetricsCollector(listener, handler);
+	}
+
+	@Override
+	public void report(ParseDiagnostic diagnostic) {
+		errors[diagnostic.getCode().ordinal()]++;
+		handler.report(diagnostic);
+	}
+
+	/**
+	 * Ends the current phase and adds its time; the following time counts for
+	 * the given phase.
+	 */
+	void enter(Phase next) {
+		long now = System.nanoTime();
+		phaseNanos[phase.ordinal()] += now - phaseStart;
+		phase = next;
+		phaseStart = now;
+	}
+
+	void addBytes(long count) {
+		bytes += count;
+	}
+
+	/**
+	 * @return reader which adds the number of read characters
+	 */
+	Reader count(Reader in) {
+		return new FilterReader(in) {
+			@Override
+			public int read() throws IOException {
+				int c = super.read();
+				if (c >= 0) {
+					bytes++;
+				}
+				return c;
+			}
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				int n = super.read(cbuf, off, len);
+				if (n > 0) {
+					bytes += n;
+				}
+				return n;
+			}
+		};
+	}
+
+	IntelHexFile finish(IntelHexFile result) {
+		enter(phase);
+		listener.parsed(new ParseMetrics(result.getRecords().size(), bytes, phaseStart - start,
+				phaseNanos[Phase.READ.ordinal()], phaseNanos[Phase.DECODE.ordinal()],
+				phaseNanos[Phase.LINK.ordinal()], errors));
+		return result;
+	}
+}
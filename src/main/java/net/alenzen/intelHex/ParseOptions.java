@@ -0,0 +1,110 @@
+package net.alenzen.intelHex;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options for {@link IntelHexFile#parse(java.nio.file.Path, ParseOptions)}.
+ */
+public class ParseOptions {
+	public static final int DEFAULT_MAPPING_CHUNK_SIZE = Integer.MAX_VALUE;
+	public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1 << 20;
+
+	private ParseDiagnosticHandler diagnosticHandler = IParsingError.VOID;
+	private boolean memoryMapped = true;
+	private int mappingChunkSize = DEFAULT_MAPPING_CHUNK_SIZE;
+	private ForkJoinPool forkJoinPool = null;
+	private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+
+	/**
+	 * @return the log set by {@link #setLog(IParsingError)}, {@link IParsingError#VOID}
+	 *         if a {@link ParseDiagnosticHandler} has been set instead
+	 */
+	public IParsingError getLog() {
+		return diagnosticHandler instanceof IParsingError ? (IParsingError) diagnosticHandler : IParsingError.VOID;
+	}
+
+	/**
+	 * @param log receives all parsing errors; null disables logging. Replaces
+	 *            the diagnostic handler.
+	 */
+	public void setLog(IParsingError log) {
+		setDiagnosticHandler(log);
+	}
+
+	public ParseDiagnosticHandler getDiagnosticHandler() {
+		return diagnosticHandler;
+	}
+
+	/**
+	 * @param diagnosticHandler receives all parsing errors without formatting
+	 *                          their messages; null disables reporting. Replaces
+	 *                          the log.
+	 */
+	public void setDiagnosticHandler(ParseDiagnosticHandler diagnosticHandler) {
+		this.diagnosticHandler = diagnosticHandler == null ? IParsingError.VOID : diagnosticHandler;
+	}
+
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * @param memoryMapped true to decode the records directly from a memory
+	 *                     mapping of the file, false to read the file through a
+	 *                     {@link java.io.Reader}
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public int getMappingChunkSize() {
+		return mappingChunkSize;
+	}
+
+	/**
+	 * Files larger than the chunk size are mapped in multiple consecutive
+	 * regions. Each region ends at a record boundary, therefore a single record
+	 * must not be longer than the chunk size.
+	 *
+	 * @param mappingChunkSize maximum number of bytes mapped at once
+	 */
+	public void setMappingChunkSize(int mappingChunkSize) {
+		if (mappingChunkSize <= 0) {
+			throw new IllegalArgumentException("Mapping chunk size needs to be positive!");
+		}
+		this.mappingChunkSize = mappingChunkSize;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * Enables parallel parsing. The content is split into chunks of about
+	 * {@link #getParallelChunkSize()} bytes which are decoded on the given pool.
+	 * Line numbers, address extensions, the detected format and the order of the
+	 * reported parsing errors are the same as for sequential parsing.
+	 *
+	 * @param forkJoinPool pool to decode the chunks on, e.g.
+	 *                     {@link ForkJoinPool#commonPool()}; null parses
+	 *                     sequentially
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	public int getParallelChunkSize() {
+		return parallelChunkSize;
+	}
+
+	/**
+	 * @param parallelChunkSize number of bytes decoded by a single task when
+	 *                          parsing in parallel
+	 */
+	public void setParallelChunkSize(int parallelChunkSize) {
+		if (parallelChunkSize <= 0) {
+			throw new IllegalArgumentException("Parallel chunk size needs to be positive!");
+		}
+		this.parallelChunkSize = parallelChunkSize;
+	}
+}
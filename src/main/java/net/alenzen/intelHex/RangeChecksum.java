@@ -0,0 +1,80 @@
+package net.alenzen.intelHex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Calculates a checksum over an address range directly on the data of the
+ * records. Gaps are passed to
+ * {@link ChecksumAlgorithm#updateRepeated(long, byte, long)} as a whole.
+ */
+class RangeChecksum {
+	static final long MIN_PARALLEL_PART_SIZE = 1 << 20;
+
+	private RangeChecksum() {
+	}
+
+	static long calculate(HexLineIndex index, long from, long to, ChecksumAlgorithm algorithm, byte fill,
+			ForkJoinPool pool) {
+		if (from < 0) {
+			throw new IllegalArgumentException("Address needs to be positive!");
+		}
+
+		if (to < from) {
+			throw new IllegalArgumentException("End address needs to be greater than or equal to start address!");
+		}
+
+		long length = to - from;
+		int parts = pool == null || !algorithm.isCombinable() ? 1
+				: (int) Math.max(1, Math.min(pool.getParallelism(), length / MIN_PARALLEL_PART_SIZE));
+		if (parts == 1) {
+			return algorithm.finish(update(index, from, to, algorithm, fill, algorithm.initialState()));
+		}
+
+		List<ForkJoinTask<Long>> tasks = new ArrayList<>(parts);
+		long[] bounds = new long[parts + 1];
+		for (int p = 0; p <= parts; p++) {
+			bounds[p] = from + length * p / parts;
+		}
+		for (int p = 0; p < parts; p++) {
+			long partFrom = bounds[p];
+			long partTo = bounds[p + 1];
+			long initial = p == 0 ? algorithm.initialState() : 0;
+			tasks.add(ForkJoinTask.adapt(() -> update(index, partFrom, partTo, algorithm, fill, initial)));
+		}
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+		long state = tasks.get(0).join();
+		for (int p = 1; p < parts; p++) {
+			state = algorithm.combine(state, tasks.get(p).join(), bounds[p + 1] - bounds[p]);
+		}
+		return algorithm.finish(state);
+	}
+
+	/**
+	 * @return the intermediate value after the bytes of {@code [from, to)}
+	 */
+	static long update(HexLineIndex index, long from, long to, ChecksumAlgorithm algorithm, byte fill,
+			long state) {
+		long position = from;
+		for (int i = index.ceilingIndexOf(from); i < index.size() && index.getStartAddress(i) < to; i++) {
+			long start = Math.max(from, index.getStartAddress(i));
+			long end = Math.min(to, index.getEndAddress(i));
+			if (start > position) {
+				state = algorithm.updateRepeated(state, fill, start - position);
+			}
+
+			HexFileLine line = index.getLine(i);
+			state = algorithm.update(state, line.getData(), (int) (start - line.getFullStartAddress()),
+					(int) (end - start));
+			position = end;
+		}
+
+		if (to > position) {
+			state = algorithm.updateRepeated(state, fill, to - position);
+		}
+		return state;
+	}
+}
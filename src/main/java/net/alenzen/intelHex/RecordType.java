@@ -23,6 +23,17 @@ public enum RecordType {
 	}
 	
 	public static RecordType fromValue(byte ordinal) throws EnumConstantNotPresentException {
+		RecordType type = lookup(ordinal);
+		if (type == null) {
+			throw new EnumConstantNotPresentException(RecordType.class, "" + ordinal);
+		}
+		return type;
+	}
+
+	/**
+	 * @return the record type or null if the value is not defined
+	 */
+	static RecordType lookup(byte ordinal) {
 		switch (ordinal) {
 		case 0:
 			return RecordType.DATA;
@@ -37,7 +48,7 @@ public enum RecordType {
 		case 5:
 			return RecordType.START_LINEAR_ADDRESS;
 		default:
-			throw new EnumConstantNotPresentException(RecordType.class, "" + ordinal);
+			return null;
 		}
 	}
 }
@@ -0,0 +1,61 @@
+package net.alenzen.intelHex;
+
+/**
+ * Options for {@link IntelHexFile#writeTo(java.nio.channels.WritableByteChannel, WriteOptions)}.
+ */
+public class WriteOptions {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private String lineTerminator = System.lineSeparator();
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+	private boolean directBuffer = true;
+
+	public String getLineTerminator() {
+		return lineTerminator;
+	}
+
+	/**
+	 * @param lineTerminator written after every record, e.g. "\r\n" or "\n";
+	 *                       defaults to the line separator of the system
+	 */
+	public void setLineTerminator(String lineTerminator) {
+		for (int i = 0; i < lineTerminator.length(); i++) {
+			if (lineTerminator.charAt(i) > 0x7F) {
+				throw new IllegalArgumentException("Line terminator needs to be ASCII!");
+			}
+		}
+		this.lineTerminator = lineTerminator;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * The encoded records are collected in a buffer which is written to the
+	 * channel once it is full. The buffer is enlarged to hold at least one record
+	 * of maximum length.
+	 *
+	 * @param bufferSize number of bytes written to the channel at once
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size needs to be positive!");
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	public boolean isDirectBuffer() {
+		return directBuffer;
+	}
+
+	/**
+	 * @param directBuffer true to encode into a direct buffer which is passed to
+	 *                     the channel without an additional copy; use a heap
+	 *                     buffer for channels which wrap an
+	 *                     {@link java.io.OutputStream}
+	 */
+	public void setDirectBuffer(boolean directBuffer) {
+		this.directBuffer = directBuffer;
+	}
+}
@@ -0,0 +1,77 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+public class ChecksumAlgorithmTest {
+	private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+	private static long calculate(ChecksumAlgorithm a, byte[] data) {
+		return a.finish(a.update(a.initialState(), data, 0, data.length));
+	}
+
+	@Test
+	public void testCheckValues() {
+		assertEquals(0xCBF43926L, calculate(ChecksumAlgorithm.CRC32, CHECK));
+		assertEquals(0x29B1L, calculate(ChecksumAlgorithm.CRC16_CCITT, CHECK));
+		assertEquals(0xDDL, calculate(ChecksumAlgorithm.ADDITIVE_8, CHECK));
+		assertEquals(0x1DDL, calculate(ChecksumAlgorithm.ADDITIVE_16, CHECK));
+		// CRC-16/XMODEM
+		assertEquals(0x31C3L, calculate(ChecksumAlgorithm.crc(16, 0x1021, 0, false, 0), CHECK));
+	}
+
+	@Test
+	public void testRepeatedAndCombine() {
+		for (ChecksumAlgorithm a : new ChecksumAlgorithm[] { ChecksumAlgorithm.CRC32, ChecksumAlgorithm.CRC16_CCITT,
+				ChecksumAlgorithm.ADDITIVE_16 }) {
+			for (int count : new int[] { 0, 1, 63, 64, 1000, 4097 }) {
+				byte[] run = new byte[count];
+				Arrays.fill(run, (byte) 0xA5);
+				long state = a.update(a.initialState(), CHECK, 0, CHECK.length);
+				assertEquals(a.update(state, run, 0, count), a.updateRepeated(state, (byte) 0xA5, count));
+
+				long part = a.update(0, run, 0, count);
+				assertEquals(a.update(state, run, 0, count), a.combine(state, part, count));
+			}
+		}
+	}
+
+	@Test
+	public void testRangeChecksum() throws IOException, InvalidFormatException {
+		IntelHexFile f = IntelHexFileTest.getTestFile(TestFile.C);
+		Random r = new Random(1234);
+		for (int i = 0; i < 20; i++) {
+			byte[] bs = new byte[r.nextInt(5000)];
+			r.nextBytes(bs);
+			f.updateBytes(r.nextInt(0x400000), bs);
+		}
+
+		byte[] image = f.readBytes(0x10, 0x400000);
+		for (int i = 0; i < image.length; i++) {
+			if (!f.isDefined(0x10 + i)) {
+				image[i] = (byte) 0xFF;
+			}
+		}
+
+		CRC32 expected = new CRC32();
+		expected.update(image);
+		assertEquals(expected.getValue(), f.checksum(0x10, 0x400010, ChecksumAlgorithm.CRC32, (byte) 0xFF));
+		assertEquals(expected.getValue(), f.checksum(0x10, 0x400010, ChecksumAlgorithm.CRC32, (byte) 0xFF,
+				new ForkJoinPool(3)));
+
+		assertEquals(calculate(ChecksumAlgorithm.CRC16_CCITT, image),
+				f.checksum(0x10, 0x400010, ChecksumAlgorithm.CRC16_CCITT, (byte) 0xFF, ForkJoinPool.commonPool()));
+		assertEquals(calculate(ChecksumAlgorithm.ADDITIVE_32, image),
+				f.checksum(0x10, 0x400010, ChecksumAlgorithm.ADDITIVE_32, (byte) 0xFF));
+		assertEquals(ChecksumAlgorithm.CRC32.finish(ChecksumAlgorithm.CRC32.initialState()),
+				f.checksum(0x20, 0x20, ChecksumAlgorithm.CRC32, (byte) 0xFF));
+	}
+}
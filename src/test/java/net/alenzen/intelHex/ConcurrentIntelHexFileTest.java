@@ -0,0 +1,75 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentIntelHexFileTest {
+	private static final int REGION = 0x10000;
+	private static final int REGIONS = 8;
+
+	@Test
+	public void testSingleThreaded() {
+		ConcurrentIntelHexFile f = new ConcurrentIntelHexFile(IntelHexFile.create());
+		assertFalse(f.isDefined(0x100));
+
+		f.updateBytes(0xFFFE, new byte[] { 1, 2, 3, 4 });
+		f.updateBytes(0xFFFF, new byte[] { 5 });
+		assertTrue(f.isDefined(0x10001));
+		assertArrayEquals(new byte[] { 0, 1, 5, 3, 4, 0 }, f.readBytes(0xFFFD, 6));
+		assertEquals("[0xFFFE-0x10002]", f.getDefinedRanges().toString());
+		assertArrayEquals(new byte[] { 1, 5, 3, 4 }, f.snapshot().readBytes(0xFFFE, 4));
+	}
+
+	@Test
+	public void testReadersSeeWholeWrites() throws InterruptedException {
+		IntelHexFile file = IntelHexFile.create();
+		ConcurrentIntelHexFile f = new ConcurrentIntelHexFile(file);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		// every write fills a whole region with a single value
+		Thread[] threads = new Thread[REGIONS + 4];
+		for (int t = 0; t < threads.length; t++) {
+			boolean writer = t < REGIONS;
+			int id = t;
+			threads[t] = new Thread(() -> {
+				Random r = new Random(id);
+				try {
+					for (int i = 0; i < 300; i++) {
+						int region = writer ? id : r.nextInt(REGIONS);
+						if (writer) {
+							byte[] bs = new byte[REGION];
+							Arrays.fill(bs, (byte) (1 + r.nextInt(100)));
+							f.updateBytes((long) region * REGION, bs);
+						} else {
+							byte[] bs = f.readBytes((long) region * REGION, REGION);
+							for (byte b : bs) {
+								assertEquals(bs[0], b);
+							}
+							if (bs[0] != 0) {
+								assertTrue(f.isDefined((long) region * REGION + REGION - 1));
+							}
+						}
+					}
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			});
+			threads[t].start();
+		}
+
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals(null, failure.get());
+		assertEquals("[0x0-0x80000]", f.getDefinedRanges().toString());
+		assertTrue(file.getRecords().stream().allMatch(l -> l.isChecksumValid()));
+	}
+}
@@ -0,0 +1,148 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HexDiffTest {
+	@Test
+	public void testCompare() throws IOException, InvalidFormatException {
+		IntelHexFile a = IntelHexFileTest.getTestFile(TestFile.C);
+		IntelHexFile b = IntelHexFileTest.getTestFile(TestFile.C);
+		assertTrue(HexDiff.compare(a, b).isEmpty());
+
+		b.updateBytes(0x1FF10, new byte[] { 0x12, 0x00, 0x00, 0x78 });
+		b.updateBytes(0x1FF2E, new byte[] { 0x00, 0x00, 0x00, 0x00 });
+		b.getRecords().removeIf(l -> l.getType() == RecordType.DATA && l.getFullStartAddress() == 0x30018);
+
+		HexDiff diff = HexDiff.compare(a, b);
+		assertEquals("[0x1FF11-0x1FF13, 0x1FF2E-0x1FF30]", diff.getChanged().toString());
+		assertEquals("[0x1FF30-0x1FF32]", diff.getAdded().toString());
+		assertEquals("[0x30018-0x30020]", diff.getRemoved().toString());
+
+		HexDiff reverse = HexDiff.compare(b, a);
+		assertEquals(diff.getChanged(), reverse.getChanged());
+		assertEquals(diff.getAdded(), reverse.getRemoved());
+		assertEquals(diff.getRemoved(), reverse.getAdded());
+	}
+
+	@Test
+	public void testMatchesBytewiseComparison() {
+		Random r = new Random(1234);
+		IntelHexFile a = IntelHexFile.create();
+		IntelHexFile b = IntelHexFile.create();
+		for (int i = 0; i < 40; i++) {
+			byte[] bs = new byte[r.nextInt(300)];
+			r.nextBytes(bs);
+			int address = r.nextInt(0x8000);
+			a.updateBytes(address, bs);
+			for (int k = 0; k < bs.length; k += 1 + r.nextInt(100)) {
+				bs[k] = (byte) r.nextInt(4);
+			}
+			(r.nextInt(4) == 0 ? b : a).updateBytes(address + r.nextInt(50), bs);
+			if (r.nextBoolean()) {
+				b.updateBytes(address, bs);
+			}
+		}
+
+		AddressRangeSet.Builder changed = new AddressRangeSet.Builder();
+		AddressRangeSet.Builder added = new AddressRangeSet.Builder();
+		AddressRangeSet.Builder removed = new AddressRangeSet.Builder();
+		byte[] bytesA = a.readBytes(0, 0x9000);
+		byte[] bytesB = b.readBytes(0, 0x9000);
+		for (int k = 0; k < 0x9000; k++) {
+			boolean inA = a.isDefined(k);
+			boolean inB = b.isDefined(k);
+			if (inA && inB && bytesA[k] != bytesB[k]) {
+				changed.add(k, k + 1);
+			} else if (inA && !inB) {
+				removed.add(k, k + 1);
+			} else if (!inA && inB) {
+				added.add(k, k + 1);
+			}
+		}
+
+		HexDiff diff = HexDiff.compare(a, b);
+		assertEquals(changed.build(), diff.getChanged());
+		assertEquals(added.build(), diff.getAdded());
+		assertEquals(removed.build(), diff.getRemoved());
+
+		List<Long> starts = new ArrayList<>();
+		HexDiff.compare(a, b, new HexDiffHandler() {
+			@Override
+			public void onChanged(long from, long to) {
+				starts.add(from);
+			}
+
+			@Override
+			public void onAdded(long from, long to) {
+				starts.add(from);
+			}
+		});
+		assertEquals(diff.getChanged().size() + diff.getAdded().size(), starts.size());
+		for (int k = 1; k < starts.size(); k++) {
+			assertTrue(starts.get(k - 1) < starts.get(k));
+		}
+	}
+
+	@Test
+	public void testCompareRecordStreams(@TempDir Path dir) throws IOException, InvalidFormatException {
+		IntelHexFile a = IntelHexFileTest.getTestFile(TestFile.C);
+		IntelHexFile b = IntelHexFileTest.getTestFile(TestFile.C);
+		b.updateBytes(0x1FF10, new byte[] { 0x12, 0x00, 0x00, 0x78 });
+		b.updateBytes(0x1FF2E, new byte[] { 0x00, 0x00, 0x00, 0x00 });
+		b.getRecords().removeIf(l -> l.getType() == RecordType.DATA && l.getFullStartAddress() == 0x30018);
+		a.compact(IntelHexFile.BYTE_COUNT_16);
+		b.compact(IntelHexFile.BYTE_COUNT_32);
+
+		Path pathA = dir.resolve("a.hex");
+		Path pathB = dir.resolve("b.hex");
+		a.writeTo(pathA);
+		b.writeTo(pathB);
+
+		List<String> expected = new ArrayList<>();
+		HexDiff.compare(a, b, recorder(expected));
+		List<String> actual = new ArrayList<>();
+		HexDiff.compare(pathA, pathB, recorder(actual));
+		assertEquals(expected, actual);
+		assertEquals(4, actual.size());
+	}
+
+	@Test
+	public void testCompareUnorderedRecordStream() {
+		String unordered = ":0400100001020304E2\n:0400000001020304F2\n:00000001FF\n";
+		HexRecordReader a = new HexRecordReader(new StringReader(unordered), IParsingError.VOID);
+		HexRecordReader b = new HexRecordReader(new StringReader(unordered), IParsingError.VOID);
+		assertThrows(IOException.class, () -> HexDiff.compare(a, b, new HexDiffHandler() {
+		}));
+	}
+
+	private static HexDiffHandler recorder(List<String> events) {
+		return new HexDiffHandler() {
+			@Override
+			public void onChanged(long from, long to) {
+				events.add("changed " + from + "-" + to);
+			}
+
+			@Override
+			public void onAdded(long from, long to) {
+				events.add("added " + from + "-" + to);
+			}
+
+			@Override
+			public void onRemoved(long from, long to) {
+				events.add("removed " + from + "-" + to);
+			}
+		};
+	}
+}
@@ -1,8 +1,18 @@
 package net.alenzen.intelHex;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 import java.util.Map.Entry;
 
 import org.junit.jupiter.api.Test;
@@ -26,6 +36,83 @@ public class HexFileIteratorTest {
 		}
 	}
 
+	@Test
+	void testModificationWhileIterating() throws IOException, InvalidFormatException {
+		IntelHexFile h = IntelHexFileTest.getTestFile(TestFile.B);
+		Iterator<Entry<Long, Byte>> it = h.iterator();
+		it.next();
+
+		// writes into existing records are visible
+		h.updateBytes(0x1FFD9L, new byte[] { 0x55 });
+		assertEquals((byte) 0x55, it.next().getValue());
+
+		h.updateBytes(0x50000L, new byte[] { 0x01 });
+		assertThrows(ConcurrentModificationException.class, () -> it.hasNext());
+		assertThrows(ConcurrentModificationException.class, () -> it.next());
+	}
+
+	@Test
+	void testCursor() throws IOException, InvalidFormatException {
+		IntelHexFile h = IntelHexFileTest.getTestFile(TestFile.B);
+		Iterator<Entry<Long, Byte>> it = h.iterator();
+		ByteCursor c = h.cursor();
+		int count = 0;
+		while (c.advance()) {
+			Entry<Long, Byte> e = it.next();
+			assertEquals(e.getKey(), c.address());
+			assertEquals(e.getValue() & 0xFF, c.value());
+			count++;
+		}
+		assertEquals(80, count);
+		assertFalse(it.hasNext());
+		assertFalse(c.advance());
+	}
+
+	@Test
+	void testIterateBlocks() throws IOException, InvalidFormatException {
+		IntelHexFile h = IntelHexFileTest.getTestFile(TestFile.B);
+		List<Long> starts = new ArrayList<>();
+		for (DataBlock b : h.iterateBlocks()) {
+			starts.add(b.getStartAddress());
+			byte[] data = new byte[b.getData().remaining()];
+			b.getData().get(data);
+			assertArrayEquals(h.readBytes(b.getStartAddress(), data.length), data);
+			assertEquals(40, data.length);
+		}
+		assertEquals(Arrays.asList(0x1FFD8L, 0x30000L), starts);
+
+		// single record block is a view on the record data
+		IntelHexFile single = IntelHexFile.parse(":0300300002337A1E\n:00000001FF".getBytes());
+		DataBlock b = single.iterateBlocks().iterator().next();
+		assertEquals(0x30, b.getStartAddress());
+		assertEquals(0x33, b.getEndAddress());
+		assertTrue(b.getData().isReadOnly());
+		assertEquals(0x7A, b.getData().get(2));
+	}
+
+	@Test
+	void testIterateBlocksSplitsLongRuns() {
+		IntelHexFile h = IntelHexFile.create();
+		byte[] bs = new byte[250];
+		new Random(1234).nextBytes(bs);
+		h.updateBytes(0x10, bs);
+		h.updateBytes(0x200, new byte[] { 1, 2, 3 });
+
+		List<Long> starts = new ArrayList<>();
+		List<Integer> lengths = new ArrayList<>();
+		DataBlockIterator it = new DataBlockIterator(h.getIndex(), 100);
+		while (it.hasNext()) {
+			DataBlock b = it.next();
+			starts.add(b.getStartAddress());
+			byte[] data = new byte[b.getData().remaining()];
+			b.getData().get(data);
+			lengths.add(data.length);
+			assertArrayEquals(h.readBytes(b.getStartAddress(), data.length), data);
+		}
+		assertEquals(Arrays.asList(0x10L, 0x74L, 0xD8L, 0x200L), starts);
+		assertEquals(Arrays.asList(100, 100, 50, 3), lengths);
+	}
+
 	private void repeatedPattern(byte[] data, byte[] bs) {
 		for(int i = 0; i < data.length; i++) {
 			data[i] = bs[i % bs.length];
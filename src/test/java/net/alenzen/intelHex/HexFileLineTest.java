@@ -2,11 +2,15 @@ package net.alenzen.intelHex;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -35,6 +39,33 @@ public class HexFileLineTest {
 		assertArrayEquals(new byte[] { 0x02, 0x33, 0x7A }, l.getData());
 	}
 
+	@Test
+	public void testParseLowerCaseAndWhitespace() {
+		HexFileLine l = HexFileLine.parse(0, "  :0300300002337a1e \t", null, FAIL_ON_TRIGGER);
+		assertEquals(0x0030, l.getAddress());
+		assertEquals((byte) 0x1E, l.getChecksum());
+		assertArrayEquals(new byte[] { 0x02, 0x33, 0x7A }, l.getData());
+	}
+
+	@Test
+	public void testParseInvalidRecords() {
+		List<String> messages = new ArrayList<>();
+		IParsingError collect = (i, line, m) -> messages.add(m);
+
+		assertNull(HexFileLine.parse(0, ":03003000", null, collect));
+		assertNull(HexFileLine.parse(0, ":0300300002G37A1E", null, collect));
+		assertNull(HexFileLine.parse(0, ":0300300702337A1E", null, collect));
+		assertEquals(3, messages.size());
+		assertTrue(messages.get(0).startsWith("Line does not meet the minimal length"));
+		assertTrue(messages.get(1).startsWith("Invalid hex symbols: For input string: \"G3\""));
+		assertTrue(messages.get(2).startsWith("Cannot determine record type"));
+
+		messages.clear();
+		HexFileLine l = HexFileLine.parse(0, "0300300002337A1E", null, collect);
+		assertEquals(1, messages.size());
+		assertArrayEquals(new byte[] { 0x02, 0x33, 0x7A }, l.getData());
+	}
+
 	@Test
 	public void testToString() throws InvalidFormatException {
 		String hexLineFromWiki = ":0300300002337A1E";
@@ -79,4 +110,25 @@ public class HexFileLineTest {
 
 		assertArrayEquals(strAsBytes, writtenBytes);
 	}
+
+	@Test
+	public void testFullAddressFollowsExtension() {
+		HexFileLine extension = new HexFileLine(0, RecordType.EXTENDED_LINEAR_ADDRESS, new byte[] { 0x00, 0x01 }, null);
+		HexFileLine l = new HexFileLine(0x10, RecordType.DATA, new byte[] { 1, 2 }, extension);
+		assertEquals(0x10010, l.getFullStartAddress());
+		assertEquals(0x10000, l.getExtendedAddressOffset());
+
+		extension.setData(new byte[] { 0x00, 0x02 });
+		assertEquals(0x20010, l.getFullStartAddress());
+		assertTrue(l.containsAddress(0x20011));
+
+		extension.setType(RecordType.EXTENDED_SEGMENT_ADDRESS);
+		assertEquals(0x30, l.getFullStartAddress());
+
+		l.setAddress(0x20);
+		assertEquals(0x40, l.getFullStartAddress());
+
+		l.setAddressExtension(null);
+		assertEquals(0x20, l.getFullStartAddress());
+	}
 }
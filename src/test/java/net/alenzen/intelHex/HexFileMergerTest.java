@@ -0,0 +1,148 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class HexFileMergerTest {
+	private static IntelHexFile file(long address, byte[] data) {
+		return IntelHexFile.fromBinary(ByteBuffer.wrap(data), address, HexFormat.I32HEX, IntelHexFile.BYTE_COUNT_16);
+	}
+
+	private static byte[] filled(int length, int value) {
+		byte[] bs = new byte[length];
+		Arrays.fill(bs, (byte) value);
+		return bs;
+	}
+
+	@Test
+	public void testMergeCoalescesAdjacentFiles() throws OverlapException {
+		IntelHexFile boot = file(0x0, filled(0x105, 1));
+		IntelHexFile app = file(0x105, filled(0x200, 2));
+		IntelHexFile calib = file(0x1FFF0, filled(0x20, 3));
+
+		IntelHexFile merged = IntelHexFile.merge(Arrays.asList(calib, app, boot), OverlapPolicy.FAIL);
+		assertEquals("[0x0-0x305, 0x1FFF0-0x20010]", merged.getDefinedRanges().toString());
+		assertArrayEquals(filled(0x105, 1), merged.readBytes(0, 0x105));
+		assertArrayEquals(filled(0x200, 2), merged.readBytes(0x105, 0x200));
+		assertArrayEquals(filled(0x20, 3), merged.readBytes(0x1FFF0, 0x20));
+
+		long shortDataLines = merged.getRecords().stream()
+				.filter(l -> l.getType() == RecordType.DATA && l.getLength() < IntelHexFile.BYTE_COUNT_32).count();
+		assertEquals(3, shortDataLines);
+		assertTrue(merged.getRecords().stream().allMatch(l -> l.isMetadataValid()));
+		assertEquals(RecordType.END_OF_FILE, merged.getRecords().get(merged.getRecords().size() - 1).getType());
+	}
+
+	@Test
+	public void testOverlapPolicies() throws OverlapException {
+		byte[] second = filled(0x40, 1);
+		second[0x10] = 5;
+		second[0x11] = 5;
+		second[0x30] = 5;
+		List<IntelHexFile> files = Arrays.asList(file(0x100, filled(0x40, 1)), file(0x120, second));
+
+		OverlapException e = assertThrows(OverlapException.class,
+				() -> IntelHexFile.merge(files, OverlapPolicy.FAIL));
+		assertEquals("[0x130-0x132]", e.getConflicts().toString());
+
+		List<AddressRangeSet> reported = new ArrayList<>();
+		MergeOptions options = new MergeOptions();
+		options.setOverlapPolicy(OverlapPolicy.FIRST_WINS);
+		options.setConflictHandler(reported::add);
+		IntelHexFile first = IntelHexFile.merge(files, options);
+		assertEquals(Arrays.asList(e.getConflicts()), reported);
+		assertArrayEquals(new byte[] { 1, 1, 1, 1 }, first.readBytes(0x12F, 4));
+		assertEquals(5, first.readBytes(0x150, 1)[0]);
+
+		IntelHexFile last = IntelHexFile.merge(files, OverlapPolicy.LAST_WINS);
+		assertArrayEquals(new byte[] { 1, 5, 5, 1 }, last.readBytes(0x12F, 4));
+		assertEquals("[0x100-0x160]", last.getDefinedRanges().toString());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = OverlapPolicy.class, names = { "FIRST_WINS", "LAST_WINS" })
+	public void testMatchesSequentialUpdates(OverlapPolicy policy) throws OverlapException {
+		Random r = new Random(1234);
+		List<IntelHexFile> files = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			IntelHexFile f = IntelHexFile.create();
+			for (int j = 0; j < 5; j++) {
+				byte[] bs = new byte[r.nextInt(600)];
+				r.nextBytes(bs);
+				f.updateBytes(r.nextInt(0x30000), bs);
+			}
+			files.add(f);
+		}
+
+		MemoryImage expected = new MemoryImage();
+		for (int i = 0; i < files.size(); i++) {
+			IntelHexFile f = files.get(policy == OverlapPolicy.LAST_WINS ? i : files.size() - 1 - i);
+			for (DataBlock b : f.iterateBlocks()) {
+				byte[] bs = new byte[b.getData().remaining()];
+				b.getData().get(bs);
+				expected.updateBytes(b.getStartAddress(), bs);
+			}
+		}
+
+		MergeOptions options = new MergeOptions();
+		options.setOverlapPolicy(policy);
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		IntelHexFile merged = IntelHexFile.merge(files, options);
+
+		MemoryImage actual = MemoryImage.of(merged);
+		assertEquals(expected.getDefinedByteCount(), actual.getDefinedByteCount());
+		assertArrayEquals(expected.readBytes(0, 0x31000), actual.readBytes(0, 0x31000));
+	}
+
+	@Test
+	public void testMergeSameInstanceTwice() throws OverlapException {
+		IntelHexFile a = file(0x100, filled(0x400, 1));
+		a.refreshIndex();
+		// leaves dirty ranges which are swept when the index is requested
+		a.getRecords().remove(3);
+		a.updateBytes(0x180, filled(0x10, 2));
+
+		MergeOptions options = new MergeOptions();
+		options.setOverlapPolicy(OverlapPolicy.FAIL);
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		IntelHexFile merged = IntelHexFile.merge(Arrays.asList(a, a, a), options);
+
+		assertEquals(a.getDefinedRanges(), merged.getDefinedRanges());
+		assertArrayEquals(a.readBytes(0x100, 0x400), merged.readBytes(0x100, 0x400));
+	}
+
+	@Test
+	public void testMergeFiles(@TempDir Path dir) throws IOException, InvalidFormatException, OverlapException {
+		List<Path> paths = new ArrayList<>();
+		for (TestFile tf : new TestFile[] { TestFile.B, TestFile.C }) {
+			Path p = dir.resolve(tf.name() + ".hex");
+			IntelHexFileTest.getTestFile(tf).writeTo(p);
+			paths.add(p);
+		}
+
+		MergeOptions options = new MergeOptions();
+		options.setOverlapPolicy(OverlapPolicy.LAST_WINS);
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		IntelHexFile merged = IntelHexFile.mergeFiles(paths, new ParseOptions(), options);
+
+		IntelHexFile c = IntelHexFileTest.getTestFile(TestFile.C);
+		assertArrayEquals(c.readBytes(0x1FF08, 0x28), merged.readBytes(0x1FF08, 0x28));
+		assertEquals(HexFormat.I32HEX, merged.getHexFormat());
+	}
+}
@@ -0,0 +1,101 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class HexImageGeneratorTest {
+	private static String generate(GeneratorOptions options) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new HexImageGenerator(options).generate(Channels.newChannel(os));
+		return new String(os.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	private static GeneratorOptions options(HexFormat format) {
+		GeneratorOptions options = new GeneratorOptions();
+		options.setSeed(42);
+		options.setFormat(format);
+		options.setSize(format == HexFormat.I8HEX ? 0x4000 : 0x30000);
+		options.setRecordLength((short) 1, (short) 64);
+		options.setGapDensity(0.2);
+		options.setMaximumGapLength(100);
+		return options;
+	}
+
+	@ParameterizedTest
+	@EnumSource(HexFormat.class)
+	public void testGeneratedFileIsValid(HexFormat format) throws IOException, InvalidFormatException {
+		GeneratorOptions options = options(format);
+		String content = generate(options);
+		assertEquals(content, generate(options));
+
+		IntelHexFile f = IntelHexFile.parse(new StringReader(content), (l, line, message) -> {
+			throw new AssertionError(message);
+		});
+		assertEquals(options.getSize(), f.coverage(0, Long.MAX_VALUE));
+		assertTrue(f.getRecords().stream().allMatch(l -> l.isMetadataValid()));
+		assertTrue(f.getRecords().stream().allMatch(l -> l.getLength() <= 64));
+		assertFalse(f.getDefinedRanges().size() < 2);
+		assertTrue(content.endsWith(":00000001FF\n"));
+
+		options.setSeed(43);
+		assertNotEquals(content, generate(options));
+	}
+
+	@Test
+	public void testLayoutDoesNotChangeData() throws IOException, InvalidFormatException {
+		GeneratorOptions options = options(HexFormat.I32HEX);
+		options.setStartAddress(0x1FFF0);
+		IntelHexFile ordered = IntelHexFile.parse(new StringReader(generate(options)), IParsingError.VOID);
+
+		options.setShuffled(true);
+		options.setShuffleWindow(100);
+		options.setRecordsPerLine(3);
+		String content = generate(options);
+		assertTrue(content.split("\n").length < ordered.getRecords().size() / 2);
+		IntelHexFile shuffled = IntelHexFile.parse(new StringReader(content), IParsingError.VOID);
+
+		assertTrue(HexDiff.compare(ordered, shuffled).isEmpty());
+		assertArrayEquals(ordered.readBytes(0x1FFF0, 0x40000), shuffled.readBytes(0x1FFF0, 0x40000));
+	}
+
+	@Test
+	public void testFaults() throws IOException, InvalidFormatException {
+		GeneratorOptions options = options(HexFormat.I32HEX);
+		options.setFaultRate(0.05);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		long faults = new HexImageGenerator(options).generate(Channels.newChannel(os));
+		assertTrue(faults > 0);
+
+		// invalid characters are reported, wrong checksums and lengths are kept
+		AtomicInteger errors = new AtomicInteger();
+		IntelHexFile f = IntelHexFile.parse(new StringReader(new String(os.toByteArray(), StandardCharsets.US_ASCII)),
+				(l, line, message) -> errors.incrementAndGet());
+		assertTrue(errors.get() > 0);
+		assertEquals(faults, errors.get() + f.getRecords().stream().filter(l -> !l.isMetadataValid()).count());
+	}
+
+	@Test
+	public void testAddressRangeOfFormat() {
+		GeneratorOptions options = new GeneratorOptions();
+		options.setFormat(HexFormat.I8HEX);
+		options.setSize(0x10001);
+		assertThrows(IllegalArgumentException.class, () -> generate(options));
+		assertThrows(IllegalArgumentException.class, () -> options.setRecordLength((short) 0, (short) 16));
+		assertThrows(IllegalArgumentException.class, () -> options.setGapDensity(1.5));
+	}
+}
@@ -0,0 +1,91 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class HexImageViewTest {
+	@Test
+	public void testSnapshotMatchesFile() throws IOException, InvalidFormatException {
+		IntelHexFile f = IntelHexFileTest.getTestFile(TestFile.C);
+		HexImageView view = f.snapshot();
+
+		assertEquals(f.getDefinedRanges(), view.getDefinedRanges());
+		assertEquals(f.coverage(0, 0x40000), view.getDefinedByteCount());
+		assertArrayEquals(f.readBytes(0x1FF00, 0x20200), view.readBytes(0x1FF00, 0x20200));
+		assertTrue(view.isDefined(0x1FF08));
+		assertFalse(view.isDefined(0x1FF30));
+		assertEquals(f.readBytes(0x20004, 1)[0], view.readByte(0x20004));
+		assertEquals(0, view.readByte(0x10));
+
+		byte[] target = new byte[8];
+		Arrays.fill(target, (byte) 0x55);
+		view.readBytes(0x1FF2C, target, 2, 6);
+		assertEquals(0x55, target[0]);
+		assertArrayEquals(f.readBytes(0x1FF2C, 6), Arrays.copyOfRange(target, 2, 8));
+	}
+
+	@Test
+	public void testSnapshotIsIsolatedFromModifications() throws IOException, InvalidFormatException {
+		IntelHexFile f = IntelHexFileTest.getTestFile(TestFile.C);
+		HexImageView first = f.snapshot();
+		byte[] before = f.readBytes(0x1FF00, 0x20200);
+
+		f.updateBytes(0x1FF10, new byte[] { 1, 2, 3, 4 });
+		f.updateBytes(0x1FF2E, new byte[] { 5, 6, 7, 8 });
+		HexImageView second = f.snapshot();
+
+		assertArrayEquals(before, first.readBytes(0x1FF00, 0x20200));
+		assertFalse(first.isDefined(0x1FF31));
+		assertArrayEquals(f.readBytes(0x1FF00, 0x20200), second.readBytes(0x1FF00, 0x20200));
+		assertEquals(f.getDefinedRanges(), second.getDefinedRanges());
+	}
+
+	@Test
+	public void testConcurrentReaders() throws InterruptedException {
+		IntelHexFile f = IntelHexFile.create();
+		f.updateBytes(0, new byte[0x4000]);
+		AtomicReference<HexImageView> published = new AtomicReference<>(f.snapshot());
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		// every version holds a single repeated value in [0, 0x4000)
+		Thread[] readers = new Thread[3];
+		for (int t = 0; t < readers.length; t++) {
+			readers[t] = new Thread(() -> {
+				byte[] buffer = new byte[0x4000];
+				try {
+					for (int i = 0; i < 2000; i++) {
+						published.get().readBytes(0, buffer, 0, buffer.length);
+						for (byte b : buffer) {
+							assertEquals(buffer[0], b);
+						}
+					}
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			});
+			readers[t].start();
+		}
+
+		Random r = new Random(1234);
+		for (int i = 0; i < 200; i++) {
+			byte[] bs = new byte[0x4000];
+			Arrays.fill(bs, (byte) r.nextInt());
+			f.updateBytes(0, bs);
+			published.set(f.snapshot());
+		}
+
+		for (Thread t : readers) {
+			t.join();
+		}
+		assertEquals(null, failure.get());
+	}
+}
@@ -0,0 +1,67 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HexLineIndexTest {
+	// 0x10-0x17, 0x00-0x07, 0x04-0x13 (overlaps both), 0x30-0x31
+	private static final String OVERLAPPING = ":08001000111111111111111160\n" + ":080000002222222222222222E8\n"
+			+ ":1000040033333333333333333333333333333333BC\n" + ":02003000444446\n" + ":00000001FF\n";
+
+	private static IntelHexFile parse(String content) {
+		return IntelHexFile.parse(content.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	public void testOverlappingRecordsFirstRecordWins() {
+		IntelHexFile hexFile = parse(OVERLAPPING);
+		List<HexFileLine> records = hexFile.getRecords();
+		HexLineIndex index = new HexLineIndex(hexFile);
+
+		assertEquals(4, index.size());
+		assertSame(records.get(1), index.findLineByAddress(0x00).get());
+		assertSame(records.get(1), index.findLineByAddress(0x07).get());
+		assertSame(records.get(2), index.findLineByAddress(0x08).get());
+		assertSame(records.get(2), index.findLineByAddress(0x0F).get());
+		assertSame(records.get(0), index.findLineByAddress(0x10).get());
+		assertSame(records.get(0), index.findLineByAddress(0x17).get());
+		assertFalse(index.findLineByAddress(0x18).isPresent());
+		assertSame(records.get(3), index.findLineByAddress(0x31).get());
+
+		byte[] expected = new byte[] { 0x22, 0x22, 0x22, 0x22, 0x22, 0x22, 0x22, 0x22, 0x33, 0x33, 0x33, 0x33, 0x33,
+				0x33, 0x33, 0x33, 0x11, 0x11, 0x11, 0x11, 0x11, 0x11, 0x11, 0x11, 0x00, 0x00 };
+		assertArrayEquals(expected, hexFile.readBytes(0, expected.length));
+		assertArrayEquals(expected, MemoryImage.of(hexFile).readBytes(0, expected.length));
+	}
+
+	@Test
+	public void testIndexOf() {
+		IntelHexFile hexFile = parse(OVERLAPPING);
+		HexLineIndex index = new HexLineIndex(hexFile);
+
+		assertEquals(0, index.indexOf(0x00));
+		assertEquals(2, index.indexOf(0x10));
+		assertEquals(-4, index.indexOf(0x18));
+		assertEquals(3, index.ceilingIndexOf(0x18));
+		assertEquals(-5, index.indexOf(0x32));
+		assertEquals(0x30, index.getStartAddress(3));
+		assertEquals(0x32, index.getEndAddress(3));
+	}
+
+	@Test
+	public void testUpdateBytesDoesNotWriteHiddenBytes() {
+		IntelHexFile hexFile = parse(OVERLAPPING);
+		hexFile.updateBytes(0x0E, new byte[] { 0x55, 0x55, 0x55, 0x55 });
+
+		assertArrayEquals(new byte[] { 0x33, 0x55, 0x55, 0x55, 0x55, 0x11 }, hexFile.readBytes(0x0D, 6));
+		// hidden part of the third record is untouched
+		assertEquals(0x33, hexFile.getRecords().get(2).getData()[0x0C]);
+	}
+}
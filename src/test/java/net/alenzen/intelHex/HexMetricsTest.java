@@ -0,0 +1,167 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class HexMetricsTest {
+	private static final String DAMAGED = ":020000040001F9\n" //
+			+ ":000000\n" //
+			+ ":1000100000000000000000000000000000000000E0\n" //
+			+ ":10002000000000X0000000000000000000000000D0\n" //
+			+ ":0E00000000000000000000000000000000000000F2\n" //
+			+ ":00000001FF\n";
+
+	private final List<ParseMetrics> parsed = new ArrayList<>();
+	private final List<long[]> events = new ArrayList<>();
+
+	private void install() {
+		HexMetrics.setListener(new HexMetricsListener() {
+			@Override
+			public void parsed(ParseMetrics metrics) {
+				parsed.add(metrics);
+			}
+
+			@Override
+			public void written(long records, long bytes, long nanos) {
+				events.add(new long[] { 'W', records, bytes });
+			}
+
+			@Override
+			public void indexBuilt(int segments, long nanos) {
+				events.add(new long[] { 'I', segments });
+			}
+
+			@Override
+			public void bytesRead(int length, long nanos) {
+				events.add(new long[] { 'R', length });
+			}
+
+			@Override
+			public void bytesUpdated(int length, int linesCreated, long nanos) {
+				events.add(new long[] { 'U', length, linesCreated });
+			}
+		});
+	}
+
+	@AfterEach
+	public void uninstall() {
+		HexMetrics.setListener(null);
+	}
+
+	@Test
+	public void testParseMetrics() throws IOException, InvalidFormatException {
+		install();
+		IntelHexFile.parse(new StringReader(DAMAGED), IParsingError.VOID);
+		IntelHexFile.parse(DAMAGED.getBytes(StandardCharsets.US_ASCII));
+
+		assertEquals(2, parsed.size());
+		for (ParseMetrics m : parsed) {
+			assertEquals(4, m.getRecords());
+			assertEquals(DAMAGED.length(), m.getBytes());
+			assertEquals(1, m.getErrorCount(ParseErrorCode.TOO_SHORT));
+			assertEquals(1, m.getErrorCount(ParseErrorCode.INVALID_CHARACTER));
+			assertEquals(2, m.getErrorCount());
+			assertTrue(m.getRecordsPerSecond() > 0);
+			assertTrue(m.getDecodeNanos() > 0 && m.getLinkNanos() > 0);
+			assertEquals(m.getNanos(), m.getReadNanos() + m.getDecodeNanos() + m.getLinkNanos());
+		}
+		assertTrue(parsed.get(0).getReadNanos() > 0);
+	}
+
+	@Test
+	public void testParsePhases(@TempDir Path dir) throws IOException, InvalidFormatException {
+		Path file = dir.resolve("damaged.hex");
+		Files.write(file, DAMAGED.getBytes(StandardCharsets.US_ASCII));
+		install();
+
+		ParseOptions options = new ParseOptions();
+		options.setMappingChunkSize(48);
+		IntelHexFile.parse(file, options);
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		options.setParallelChunkSize(20);
+		IntelHexFile.parse(file, options);
+
+		assertEquals(2, parsed.size());
+		for (ParseMetrics m : parsed) {
+			assertEquals(4, m.getRecords());
+			assertTrue(m.getReadNanos() > 0 && m.getDecodeNanos() > 0 && m.getLinkNanos() > 0);
+			assertEquals(m.getNanos(), m.getReadNanos() + m.getDecodeNanos() + m.getLinkNanos());
+		}
+	}
+
+	@Test
+	public void testOperationMetrics() throws IOException, InvalidFormatException {
+		IntelHexFile f = IntelHexFileTest.getTestFile(TestFile.C);
+		install();
+
+		f.refreshIndex();
+		int segments = f.getIndex().size();
+		f.readBytes(0x1FF08, 0x10);
+		f.updateBytes(0x1FF10, new byte[4]);
+		f.updateBytes(0x40000, new byte[0x30]);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		f.writeTo(os);
+
+		assertEquals(5, events.size());
+		assertEquals('I', events.get(0)[0]);
+		assertEquals(segments, events.get(0)[1]);
+		assertEquals('R', events.get(1)[0]);
+		assertEquals(0x10, events.get(1)[1]);
+		assertEquals(0, events.get(2)[2]);
+		// two data records and the address extension
+		assertEquals(3, events.get(3)[2]);
+		assertEquals(f.getRecords().size(), events.get(4)[1]);
+		assertEquals(os.size(), events.get(4)[2]);
+	}
+
+	@Test
+	public void testDisabled() throws IOException, InvalidFormatException {
+		IntelHexFile f = IntelHexFileTest.getTestFile(TestFile.C);
+		f.updateBytes(0x40000, new byte[0x30]);
+		assertTrue(parsed.isEmpty() && events.isEmpty());
+	}
+
+	@Test
+	public void testFlightRecorderEvents(@TempDir Path dir) throws IOException, InvalidFormatException {
+		HexMetrics.setListener(HexMetrics.jfrListener().get());
+
+		Path dump = dir.resolve("recording.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("net.alenzen.intelHex.Parse");
+			recording.enable("net.alenzen.intelHex.IndexBuild");
+			recording.start();
+			IntelHexFileTest.getTestFile(TestFile.C).refreshIndex();
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<String> names = new ArrayList<>();
+		for (RecordedEvent e : RecordingFile.readAllEvents(dump)) {
+			names.add(e.getEventType().getName());
+			if (e.getEventType().getName().equals("net.alenzen.intelHex.Parse")) {
+				assertTrue(e.getDuration("decodeTime").toNanos() > 0);
+				assertTrue(e.getDuration("linkTime").toNanos() > 0);
+			}
+		}
+		assertTrue(names.contains("net.alenzen.intelHex.Parse"));
+		assertTrue(names.contains("net.alenzen.intelHex.IndexBuild"));
+	}
+}
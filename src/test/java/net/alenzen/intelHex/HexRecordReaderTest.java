@@ -0,0 +1,88 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class HexRecordReaderTest {
+	private static final IParsingError FAIL_ON_TRIGGER = (i, line, m) -> fail(i + ": " + m);
+
+	@ParameterizedTest
+	@EnumSource(TestFile.class)
+	public void testNextMatchesRecords(TestFile tf) throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFileTest.getTestFile(tf);
+
+		try (InputStream s = ClassLoader.getSystemResourceAsStream(tf.getFilename());
+				HexRecordReader reader = new HexRecordReader(new InputStreamReader(s), FAIL_ON_TRIGGER)) {
+			HexRecord first = null;
+			for (HexFileLine expected : hexFile.getRecords()) {
+				HexRecord r = reader.next();
+				if (first == null) {
+					first = r;
+				}
+				assertEquals(first, r);
+				assertEquals(expected.getLineNumber(), r.getLineNumber());
+				assertEquals(expected.getType(), r.getType());
+				assertEquals(expected.getAddress(), r.getAddress());
+				assertArrayEquals(expected.getData(), r.copyData());
+				if (expected.getType() == RecordType.DATA) {
+					assertEquals(expected.getFullStartAddress(), r.getFullAddress());
+				}
+			}
+			assertNull(reader.next());
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(TestFile.class)
+	public void testReadAllMatchesIterator(TestFile tf) throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFileTest.getTestFile(tf);
+		List<Long> addresses = new ArrayList<>();
+		List<Byte> values = new ArrayList<>();
+		int[] eof = new int[1];
+
+		ByteBuffer content;
+		try (InputStream s = ClassLoader.getSystemResourceAsStream(tf.getFilename())) {
+			content = ByteBuffer.wrap(IOUtils.toByteArray(s));
+		}
+
+		try (HexRecordReader reader = new HexRecordReader(content, FAIL_ON_TRIGGER)) {
+			reader.readAll(new HexRecordHandler() {
+				@Override
+				public void onData(long fullAddress, byte[] buffer, int offset, int length) {
+					for (int i = 0; i < length; i++) {
+						addresses.add(fullAddress + i);
+						values.add(buffer[offset + i]);
+					}
+				}
+
+				@Override
+				public void onEof() {
+					eof[0]++;
+				}
+			});
+		}
+
+		int i = 0;
+		for (Entry<Long, Byte> e : hexFile) {
+			assertEquals(e.getKey(), addresses.get(i));
+			assertEquals(e.getValue(), values.get(i));
+			i++;
+		}
+		assertEquals(i, addresses.size());
+		assertEquals(1, eof[0]);
+	}
+}
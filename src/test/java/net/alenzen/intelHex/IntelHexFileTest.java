@@ -2,22 +2,36 @@ package net.alenzen.intelHex;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -50,6 +64,110 @@ public class IntelHexFileTest {
 		assertEquals(tf.getFormat(), hexFile.getHexFormat());
 	}
 
+	@ParameterizedTest
+	@EnumSource(TestFile.class)
+	public void testParseBytesMatchesReader(TestFile tf) throws IOException, InvalidFormatException {
+		IntelHexFile expected = getTestFile(tf);
+		byte[] content;
+		try (InputStream s = ClassLoader.getSystemResourceAsStream(tf.getFilename())) {
+			content = IOUtils.toByteArray(s);
+		}
+
+		IntelHexFile actual = IntelHexFile.parse(content, FAIL_ON_TRIGGER);
+		assertEquals(expected.getHexFormat(), actual.getHexFormat());
+		assertEquals(expected.toHexFileString(), actual.toHexFileString());
+		for (int i = 0; i < expected.getRecords().size(); i++) {
+			HexFileLine e = expected.getRecords().get(i);
+			HexFileLine a = actual.getRecords().get(i);
+			assertEquals(e.getLineNumber(), a.getLineNumber());
+			assertEquals(e.getFullStartAddress(), a.getFullStartAddress());
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 30, 64, 1000, ParseOptions.DEFAULT_MAPPING_CHUNK_SIZE })
+	public void testParseMemoryMapped(int chunkSize, @TempDir Path dir) throws IOException, InvalidFormatException {
+		for (TestFile tf : TestFile.values()) {
+			Path file = dir.resolve(tf.getFilename());
+			try (InputStream s = ClassLoader.getSystemResourceAsStream(tf.getFilename())) {
+				Files.copy(s, file);
+			}
+
+			ParseOptions options = new ParseOptions();
+			options.setLog(FAIL_ON_TRIGGER);
+			options.setMappingChunkSize(chunkSize);
+			IntelHexFile actual = IntelHexFile.parse(file, options);
+
+			IntelHexFile expected = getTestFile(tf);
+			assertEquals(expected.getHexFormat(), actual.getHexFormat());
+			assertEquals(expected.toHexFileString(), actual.toHexFileString());
+		}
+	}
+
+	@Test
+	public void testParseMemoryMappedRecordLongerThanChunk(@TempDir Path dir) throws IOException, InvalidFormatException {
+		Path file = dir.resolve("singleLine.hex");
+		try (InputStream s = ClassLoader.getSystemResourceAsStream(TestFile.H.getFilename())) {
+			Files.copy(s, file);
+		}
+
+		ParseOptions options = new ParseOptions();
+		options.setMappingChunkSize(20);
+		assertThrows(IOException.class, () -> IntelHexFile.parse(file, options));
+
+		options.setMemoryMapped(false);
+		assertEquals(getTestFile(TestFile.H).toHexFileString(), IntelHexFile.parse(file, options).toHexFileString());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 17, 64, 300, ParseOptions.DEFAULT_PARALLEL_CHUNK_SIZE })
+	public void testParseParallelMatchesSequential(int chunkSize) throws IOException {
+		// mixes I32HEX and I16HEX files and adds damaged records
+		StringBuilder sb = new StringBuilder();
+		for (TestFile tf : new TestFile[] { TestFile.A, TestFile.G, TestFile.H, TestFile.C, TestFile.E }) {
+			try (InputStream s = ClassLoader.getSystemResourceAsStream(tf.getFilename())) {
+				sb.append(new String(IOUtils.toByteArray(s), StandardCharsets.US_ASCII));
+			}
+			sb.append("\n:03003X0002337A1E\n0300330002337A1B\n:0000\n");
+		}
+		ByteBuffer content = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII));
+
+		List<String> expectedLog = new ArrayList<>();
+		IntelHexFile expected = IntelHexFile.parse(content, (i, line, m) -> expectedLog.add(i + line + m));
+
+		List<String> actualLog = new ArrayList<>();
+		ParseOptions options = new ParseOptions();
+		options.setLog((i, line, m) -> actualLog.add(i + line + m));
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		options.setParallelChunkSize(chunkSize);
+		IntelHexFile actual = IntelHexFile.parse(content, options);
+
+		assertTrue(expectedLog.stream().anyMatch(m -> m.contains("format is not clearly determinable")));
+		assertEquals(expectedLog, actualLog);
+		assertEquals(expected.getHexFormat(), actual.getHexFormat());
+		assertEquals(expected.getRecords().size(), actual.getRecords().size());
+		for (int i = 0; i < expected.getRecords().size(); i++) {
+			HexFileLine e = expected.getRecords().get(i);
+			HexFileLine a = actual.getRecords().get(i);
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getLineNumber(), a.getLineNumber());
+			assertEquals(e.getFullStartAddress(), a.getFullStartAddress());
+		}
+	}
+
+	@Test
+	public void testParseByteBufferSkipsInvalidRecords() {
+		String content = ":0300300002337A1E\r\n:03003X0002337A1E\r\n0300330002337A1B\n:0000\n:00000001FF";
+		List<Long> errorLines = new ArrayList<>();
+		IntelHexFile hexFile = IntelHexFile.parse(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)),
+				(i, line, m) -> errorLines.add(i));
+
+		assertEquals(3, hexFile.getRecords().size());
+		assertEquals(Arrays.asList(2L, 3L, 4L), errorLines);
+		assertEquals(3, hexFile.getRecords().get(1).getLineNumber());
+		assertArrayEquals(new byte[] { 0x02, 0x33, 0x7A }, hexFile.readBytes(0x33, 3));
+	}
+
 	private int countColons(TestFile tf) throws IOException {
 		int counted = 0;
 		try (InputStream f = ClassLoader.getSystemResourceAsStream(tf.getFilename())) {
@@ -80,6 +198,35 @@ public class IntelHexFileTest {
 		assertTrue(line.getFullStartAddress() + line.getLength() > address);
 	}
 
+	@Test
+	public void testIsDefinedIgnoresExtensionRecords() throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = getTestFile(TestFile.B);
+		assertFalse(hexFile.isDefined(0));
+		assertFalse(hexFile.findLineByAddress(1).isPresent());
+		assertTrue(hexFile.isDefined(0x1FFD8));
+		assertTrue(hexFile.isDefined(0x1FFFF));
+		assertFalse(hexFile.isDefined(0x20000));
+	}
+
+	@Test
+	public void testDefinedRanges() throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = getTestFile(TestFile.C);
+		AddressRangeSet ranges = hexFile.getDefinedRanges();
+		assertEquals("[0x1FF08-0x1FF30, 0x20000-0x20008, 0x30000-0x30028]", ranges.toString());
+		assertEquals(88, ranges.getTotalLength());
+		assertTrue(ranges.containsAll(0x1FF10, 0x1FF30));
+		assertFalse(ranges.containsAll(0x1FF10, 0x1FF31));
+		assertTrue(ranges.intersects(0x1FF2F, 0x20000));
+		assertFalse(ranges.intersects(0x1FF30, 0x20000));
+
+		AddressRangeSet clipped = hexFile.getDefinedRanges(0x1FF10, 0x30004);
+		assertEquals("[0x1FF10-0x1FF30, 0x20000-0x20008, 0x30000-0x30004]", clipped.toString());
+
+		assertEquals(0x20, hexFile.coverage(0x1FF10, 0x1FF30));
+		assertEquals(0x20 + 8 + 4, hexFile.coverage(0x1FF10, 0x30004));
+		assertEquals(0, hexFile.coverage(0x1FF30, 0x20000));
+	}
+
 	@Test
 	public void testToHexFileString() throws IOException, InvalidFormatException, URISyntaxException {
 		IntelHexFile hexFile = getTestFile(TestFile.A);
@@ -312,6 +459,103 @@ public class IntelHexFileTest {
 		assertEquals(8, f.findLineByAddress(0x00030000).get().getData().length);
 	}
 
+	@Test
+	public void testRecordModificationsUpdateIndex() throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = getTestFile(TestFile.A);
+		assertArrayEquals(new byte[] { 0x12, 0x34 }, hexFile.readBytes(0, 2));
+
+		// move the first line behind the others
+		HexFileLine first = hexFile.getRecords().get(0);
+		first.setAddress(0x40);
+		assertArrayEquals(new byte[] { 0x00, 0x00 }, hexFile.readBytes(0, 2));
+		assertArrayEquals(new byte[] { 0x12, 0x34 }, hexFile.readBytes(0x40, 2));
+		assertTrue(hexFile.isDefined(0x40));
+
+		// remove and re-insert lines
+		HexFileLine removed = hexFile.getRecords().remove(1);
+		assertArrayEquals(new byte[] { 0x00, 0x00 }, hexFile.readBytes(removed.getFullStartAddress(), 2));
+		hexFile.getRecords().add(new HexFileLine(0x80, RecordType.DATA, new byte[] { 0x55, 0x66 }, null));
+		assertArrayEquals(new byte[] { 0x55, 0x66 }, hexFile.readBytes(0x80, 2));
+		hexFile.getRecords().set(hexFile.getRecords().size() - 1,
+				new HexFileLine(0x90, RecordType.DATA, new byte[] { 0x77 }, null));
+		assertArrayEquals(new byte[] { 0x00, 0x77 }, hexFile.readBytes(0x8F, 2));
+		assertArrayEquals(new byte[] { 0x00, 0x00 }, hexFile.readBytes(0x80, 2));
+
+		// removed lines are no longer tracked
+		removed.setAddress(0x70);
+		assertArrayEquals(new byte[] { 0x00, 0x00 }, hexFile.readBytes(0x70, 2));
+
+		// overlapping line takes the slow path
+		hexFile.getRecords().add(0, new HexFileLine(0x41, RecordType.DATA, new byte[] { 0x11 }, null));
+		assertArrayEquals(new byte[] { 0x12, 0x11, 0x56 }, hexFile.readBytes(0x40, 3));
+		hexFile.updateBytes(0x3F, new byte[] { 0x01, 0x02, 0x03, 0x04 });
+		assertArrayEquals(new byte[] { 0x01, 0x02, 0x03, 0x04, 0x78 }, hexFile.readBytes(0x3F, 5));
+	}
+
+	@Test
+	public void testDirtyRangesMatchRebuild() {
+		Random random = new Random(7);
+		List<HexFileLine> records = new ArrayList<>();
+		HexFileLine[] extensions = new HexFileLine[4];
+		for (int i = 0; i < extensions.length; i++) {
+			extensions[i] = new HexFileLine(0, RecordType.EXTENDED_LINEAR_ADDRESS, new byte[] { 0, (byte) i }, null);
+			records.add(extensions[i]);
+			for (int j = 0; j < 50; j++) {
+				records.add(new HexFileLine(random.nextInt(0x400), RecordType.DATA, new byte[1 + random.nextInt(32)],
+						extensions[i]));
+			}
+		}
+		IntelHexFile f = new IntelHexFile(records, HexFormat.I32HEX);
+		HexLineIndex index = f.getIndex();
+
+		for (int step = 0; step < 200; step++) {
+			List<HexFileLine> current = f.getRecords();
+			HexFileLine l = current.get(random.nextInt(current.size()));
+			switch (random.nextInt(5)) {
+			case 0:
+				if (l.getType() == RecordType.EXTENDED_LINEAR_ADDRESS) {
+					l.setData(new byte[] { 0, (byte) random.nextInt(6) });
+				}
+				break;
+			case 1:
+				current.remove(l);
+				break;
+			case 2:
+				l.setAddress(random.nextInt(0x400));
+				break;
+			case 3:
+				current.add(random.nextInt(current.size()), new HexFileLine(random.nextInt(0x400), RecordType.DATA,
+						new byte[] { (byte) step }, extensions[random.nextInt(extensions.length)]));
+				break;
+			default:
+				f.updateBytes(random.nextInt(0x60000), new byte[] { (byte) step, (byte) step });
+				break;
+			}
+
+			HexLineIndex expected = new HexLineIndex(f);
+			assertSame(index, f.getIndex());
+			assertEquals(expected.size(), index.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.getStartAddress(i), index.getStartAddress(i));
+				assertEquals(expected.getEndAddress(i), index.getEndAddress(i));
+				assertSame(expected.getLine(i), index.getLine(i));
+			}
+		}
+	}
+
+	@Test
+	public void testRecordsAreCopied() {
+		List<HexFileLine> records = new ArrayList<>();
+		records.add(new HexFileLine(0x10, RecordType.DATA, new byte[] { 0x01 }, null));
+		IntelHexFile f = IntelHexFile.create();
+		f.setRecords(records);
+		assertTrue(f.isDefined(0x10));
+
+		records.add(new HexFileLine(0x20, RecordType.DATA, new byte[] { 0x02 }, null));
+		assertEquals(1, f.getRecords().size());
+		assertFalse(f.isDefined(0x20));
+	}
+
 	@Test
 	public void testWriteToStream() throws IOException, InvalidFormatException {
 		IntelHexFile f = getTestFile(TestFile.B);
@@ -333,6 +577,209 @@ public class IntelHexFileTest {
 		assertArrayEquals(bytesFromToString, bytesWritten);
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = { "\n", "\r\n" })
+	public void testWriteToChannel(String lineTerminator, @TempDir Path dir)
+			throws IOException, InvalidFormatException {
+		IntelHexFile f = getTestFile(TestFile.C);
+		WriteOptions options = new WriteOptions();
+		options.setLineTerminator(lineTerminator);
+		options.setBufferSize(1);
+
+		Path file = dir.resolve("out.hex");
+		f.writeTo(file, options);
+
+		String expected = f.getRecords().stream().map(l -> l.toString() + lineTerminator)
+				.collect(Collectors.joining());
+		assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+		assertEquals(f.toHexFileString(), IntelHexFile.parse(file).toHexFileString());
+	}
+
+	@Test
+	public void testEncoderChecksum() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		WriteOptions options = new WriteOptions();
+		options.setLineTerminator("\n");
+		options.setDirectBuffer(false);
+
+		HexRecordEncoder encoder = new HexRecordEncoder(Channels.newChannel(os), options);
+		encoder.write(0xFF08, RecordType.DATA, new byte[] { 0, 0x12, 0x34, 0x56, 0x78, 0x12, 0x34, 0x56, 0x78 }, 1,
+				8);
+		encoder.write(0, RecordType.END_OF_FILE, new byte[0], 0, 0);
+		encoder.flush();
+
+		assertEquals(":08FF08001234567812345678C9\n:00000001FF\n", os.toString("US-ASCII"));
+	}
+
+	private static byte[] expectedImage(IntelHexFile f, long from, int length, byte fill) {
+		byte[] expected = f.readBytes(from, length);
+		for (int i = 0; i < length; i++) {
+			if (!f.isDefined(from + i)) {
+				expected[i] = fill;
+			}
+		}
+		return expected;
+	}
+
+	@Test
+	public void testExportBinaryToChannel() throws IOException, InvalidFormatException {
+		IntelHexFile f = getTestFile(TestFile.C);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		f.exportBinary(Channels.newChannel(os), 0x1FF00, 0x30030, (byte) 0xFF);
+		assertArrayEquals(expectedImage(f, 0x1FF00, 0x10130, (byte) 0xFF), os.toByteArray());
+
+		os.reset();
+		f.exportBinary(Channels.newChannel(os), 0x1FF10, 0x1FF10, (byte) 0xFF);
+		assertEquals(0, os.size());
+		assertThrows(IllegalArgumentException.class,
+				() -> f.exportBinary(Channels.newChannel(new ByteArrayOutputStream()), 0x10, 0x0F, (byte) 0));
+	}
+
+	@Test
+	public void testExportBinaryToFile(@TempDir Path dir) throws IOException, InvalidFormatException {
+		IntelHexFile f = getTestFile(TestFile.C);
+		Random r = new Random(1234);
+		for (int i = 0; i < 20; i++) {
+			byte[] bs = new byte[r.nextInt(5000)];
+			r.nextBytes(bs);
+			f.updateBytes(r.nextInt(0x180000), bs);
+		}
+
+		Path file = dir.resolve("image.bin");
+		f.exportBinary(file, 0x100, 0x180100, (byte) 0xA5);
+		assertArrayEquals(expectedImage(f, 0x100, 0x180000, (byte) 0xA5), Files.readAllBytes(file));
+
+		f.exportBinary(file, 0x1FF10, 0x1FF20, (byte) 0xA5);
+		assertArrayEquals(f.readBytes(0x1FF10, 0x10), Files.readAllBytes(file));
+	}
+
+	@Test
+	public void testFromBinary(@TempDir Path dir) throws IOException, InvalidFormatException {
+		byte[] image = new byte[0x30000];
+		new Random(1234).nextBytes(image);
+		Path file = dir.resolve("image.bin");
+		Files.write(file, image);
+
+		IntelHexFile f = IntelHexFile.fromBinary(file, 0x1FFF0, HexFormat.I32HEX);
+		assertArrayEquals(image, f.readBytes(0x1FFF0, image.length));
+		assertEquals(new AddressRangeSet.Builder().add(0x1FFF0, 0x4FFF0).build(), f.getDefinedRanges());
+		assertTrue(f.getRecords().stream().allMatch(l -> l.isMetadataValid() && l.getLength() <= 0x20));
+		assertEquals(4, f.getRecords().stream().filter(l -> l.getType() == RecordType.EXTENDED_LINEAR_ADDRESS)
+				.count());
+		assertEquals(RecordType.END_OF_FILE, f.getRecords().get(f.getRecords().size() - 1).getType());
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(image.length);
+		direct.put(image).flip();
+		IntelHexFile fromDirect = IntelHexFile.fromBinary(direct, 0x1FFF0, HexFormat.I32HEX);
+		assertEquals(0, direct.position());
+		assertEquals(f.toHexFileString(), fromDirect.toHexFileString());
+		assertEquals(f.toHexFileString(), IntelHexFile.parse(f.toHexFileString().getBytes()).toHexFileString());
+
+		IntelHexFile f16 = IntelHexFile.fromBinary(file, 0x1FFF0, HexFormat.I32HEX, IntelHexFile.BYTE_COUNT_16);
+		assertArrayEquals(image, f16.readBytes(0x1FFF0, image.length));
+		assertEquals(IntelHexFile.BYTE_COUNT_16, f16.getMaximumLineByteCount());
+		assertTrue(f16.getRecords().stream().allMatch(l -> l.getLength() <= 0x10));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> IntelHexFile.fromBinary(ByteBuffer.wrap(image), 0, HexFormat.I8HEX));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	public void testCompact(boolean parallel) throws InvalidFormatException {
+		Random r = new Random(1234);
+		byte[] image = new byte[0x30000];
+		r.nextBytes(image);
+
+		// fragments of 1 to 8 bytes in random order, each with its own extension
+		List<HexFileLine> fragments = new ArrayList<>();
+		for (int offset = 0; offset < image.length;) {
+			int l = Math.min(1 + r.nextInt(8), image.length - offset);
+			long address = 0x1FF00 + offset;
+			fragments.add(new HexFileLine((int) (address & 0xFFFF), RecordType.DATA,
+					Arrays.copyOfRange(image, offset, offset + l), new HexFileLine(0,
+							RecordType.EXTENDED_LINEAR_ADDRESS, ByteUtils.shortToByteArray((short) (address >> 16)), null)));
+			offset += l;
+		}
+		Collections.shuffle(fragments, r);
+
+		List<HexFileLine> records = new ArrayList<>();
+		for (HexFileLine l : fragments) {
+			records.add(l.getAddressExtension());
+			records.add(l);
+		}
+		HexFileLine start = new HexFileLine(0, RecordType.START_LINEAR_ADDRESS, new byte[] { 0, 0, 0x12, 0x34 }, null);
+		records.add(start);
+		records.add(new HexFileLine(0, RecordType.END_OF_FILE, new byte[0], null));
+
+		IntelHexFile hexFile = IntelHexFile.parse(new IntelHexFile(records, HexFormat.I32HEX).toHexFileString()
+				.getBytes(StandardCharsets.US_ASCII));
+		hexFile.compact(IntelHexFile.BYTE_COUNT_32, parallel ? ForkJoinPool.commonPool() : null);
+
+		List<HexFileLine> compacted = hexFile.getRecords();
+		assertArrayEquals(image, hexFile.readBytes(0x1FF00, image.length));
+		assertEquals(0x30000 / 32, compacted.stream().filter(l -> l.getType() == RecordType.DATA).count());
+		assertEquals(4, compacted.stream().filter(l -> l.getType() == RecordType.EXTENDED_LINEAR_ADDRESS).count());
+		assertEquals(start.toString(), compacted.get(compacted.size() - 2).toString());
+		assertEquals(RecordType.END_OF_FILE, compacted.get(compacted.size() - 1).getType());
+		assertEquals(IntelHexFile.BYTE_COUNT_32, hexFile.getMaximumLineByteCount());
+
+		long previous = -1;
+		for (HexFileLine l : compacted) {
+			if (l.getType() == RecordType.DATA) {
+				assertTrue(l.getFullStartAddress() > previous);
+				previous = l.getFullStartAddress();
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 3, 40 })
+	public void testUpdateBytesFillsGapsOfUnsortedRecords(int lineCount) throws InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFile.create();
+		for (int i = 0; i < lineCount; i++) {
+			hexFile.updateBytes(0x20000 + i * 0x40L, new byte[] { (byte) i, (byte) i });
+		}
+		// the gaps follow each other in the opposite order of the records behind the extension
+		List<HexFileLine> records = hexFile.getRecords();
+		assertEquals(RecordType.EXTENDED_LINEAR_ADDRESS, records.get(0).getType());
+		Collections.reverse(records.subList(1, records.size()));
+		hexFile.updateBytes(0x20008, new byte[] { 1 });
+
+		Random r = new Random(1234);
+		byte[] bs = new byte[lineCount * 0x40];
+		r.nextBytes(bs);
+		hexFile.updateBytes(0x20000, bs);
+
+		assertArrayEquals(bs, hexFile.readBytes(0x20000, bs.length));
+		IntelHexFile reparsed = IntelHexFile.parse(hexFile.toHexFileString().getBytes(StandardCharsets.US_ASCII));
+		assertArrayEquals(bs, reparsed.readBytes(0x20000, bs.length));
+		hexFile.refreshIndex();
+		assertArrayEquals(bs, hexFile.readBytes(0x20000, bs.length));
+	}
+
+	@Test
+	public void testUpdateBytesFillsGapsInBatches() throws InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFile.create();
+		hexFile.updateBytes(0x1FFE0, new byte[] { 1, 2, 3, 4 });
+		hexFile.updateBytes(0x20100, new byte[] { 5, 6, 7, 8 });
+		hexFile.updateBytes(0x50000, new byte[] { 9 });
+
+		Random r = new Random(1234);
+		byte[] bs = new byte[0x40000];
+		r.nextBytes(bs);
+		hexFile.updateBytes(0x1FF00, bs);
+
+		assertArrayEquals(bs, hexFile.readBytes(0x1FF00, bs.length));
+		assertEquals(new AddressRangeSet.Builder().add(0x1FF00, 0x5FF00).build(), hexFile.getDefinedRanges());
+
+		// the record order has to be consistent with the address extensions
+		IntelHexFile reparsed = IntelHexFile.parse(hexFile.toHexFileString().getBytes(StandardCharsets.US_ASCII));
+		assertArrayEquals(bs, reparsed.readBytes(0x1FF00, bs.length));
+		hexFile.refreshIndex();
+		assertArrayEquals(bs, hexFile.readBytes(0x1FF00, bs.length));
+	}
+
 	@Test
 	public void testPerformanceToString() throws IOException, InvalidFormatException {
 		Random r = new Random(1234);
@@ -0,0 +1,92 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class IntelHexWriterTest {
+	private static WriteOptions lf() {
+		WriteOptions options = new WriteOptions();
+		options.setLineTerminator("\n");
+		options.setBufferSize(100);
+		return options;
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = HexFormat.class, names = { "I16HEX", "I32HEX" })
+	public void testMatchesMemoryImage(HexFormat format) throws IOException, InvalidFormatException {
+		Random r = new Random(1234);
+		MemoryImage image = new MemoryImage();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		long address = 0xFFF0;
+		try (IntelHexWriter writer = new IntelHexWriter(Channels.newChannel(os), format,
+				IntelHexFile.BYTE_COUNT_16, lf())) {
+			for (int i = 0; i < 50; i++) {
+				byte[] chunk = new byte[r.nextInt(5000)];
+				r.nextBytes(chunk);
+				if (i % 2 == 0) {
+					writer.write(address, chunk);
+				} else {
+					ByteBuffer direct = ByteBuffer.allocateDirect(chunk.length);
+					direct.put(chunk).flip();
+					writer.write(address, direct);
+				}
+				image.updateBytes(address, chunk);
+				address += chunk.length + r.nextInt(3) * 0x1000;
+			}
+		}
+
+		IntelHexFile reparsed = IntelHexFile.parse(os.toByteArray());
+		assertEquals(format, reparsed.getHexFormat());
+		assertTrue(reparsed.getRecords().stream()
+				.allMatch(l -> l.isMetadataValid() && l.getLength() <= IntelHexFile.BYTE_COUNT_16));
+
+		MemoryImage written = MemoryImage.of(reparsed);
+		assertEquals(image.getDefinedByteCount(), written.getDefinedByteCount());
+		assertArrayEquals(image.readBytes(0xFFF0, (int) (address - 0xFFF0)),
+				written.readBytes(0xFFF0, (int) (address - 0xFFF0)));
+	}
+
+	@Test
+	public void testExtensionOnlyWhenWindowChanges() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (IntelHexWriter writer = new IntelHexWriter(Channels.newChannel(os), HexFormat.I32HEX,
+				IntelHexFile.BYTE_COUNT_16, lf())) {
+			writer.write(0x1FFF8, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+			writer.write(0x20100, new byte[] { 11 });
+		}
+
+		assertEquals(":020000040001F9\n" + ":08FFF8000102030405060708DD\n" + ":020000040002F8\n"
+				+ ":02000000090AEB\n" + ":010100000BF3\n" + ":00000001FF\n", os.toString("US-ASCII"));
+	}
+
+	@Test
+	public void testInvalidAddresses() throws IOException {
+		IntelHexWriter writer = new IntelHexWriter(Channels.newChannel(new ByteArrayOutputStream()),
+				HexFormat.I8HEX);
+		writer.write(0x100, new byte[0x10]);
+		assertThrows(IllegalArgumentException.class, () -> writer.write(0x10F, new byte[1]));
+		assertThrows(IllegalArgumentException.class, () -> writer.write(0x10000, new byte[1]));
+		writer.close();
+		assertThrows(IOException.class, () -> writer.write(0x200, new byte[1]));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new IntelHexWriter(Channels.newChannel(os), HexFormat.I32HEX).close();
+		assertArrayEquals((":00000001FF" + System.lineSeparator()).getBytes(), os.toByteArray());
+	}
+}
@@ -0,0 +1,76 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class MemoryImageTest {
+	@ParameterizedTest
+	@EnumSource(TestFile.class)
+	public void testReadMatchesHexFile(TestFile tf) throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFileTest.getTestFile(tf);
+		MemoryImage image = MemoryImage.of(hexFile);
+
+		for (long address : new long[] { 0, 0x1E, 0x1FFD0, 0x1FFF8, 0x2FFF0, 0x30000 }) {
+			assertArrayEquals(hexFile.readBytes(address, 100), image.readBytes(address, 100));
+			for (int i = 0; i < 100; i++) {
+				long a = address + i;
+				boolean defined = hexFile.getRecords().stream()
+						.anyMatch(l -> l.getType() == RecordType.DATA && l.containsAddress(a));
+				assertEquals(defined, image.isDefined(a));
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = TestFile.class, names = { "B", "G" })
+	public void testToIntelHexFile(TestFile tf) throws IOException, InvalidFormatException {
+		IntelHexFile hexFile = IntelHexFileTest.getTestFile(tf);
+		MemoryImage image = MemoryImage.of(hexFile);
+		image.updateBytes(0x2FFF0, new byte[0x20]);
+
+		IntelHexFile converted = image.toIntelHexFile(tf.getFormat(), IntelHexFile.BYTE_COUNT_16);
+		assertEquals(image.getDefinedByteCount(), MemoryImage.of(converted).getDefinedByteCount());
+		assertArrayEquals(image.readBytes(0x1FF00, 0x20000), converted.readBytes(0x1FF00, 0x20000));
+		assertTrue(converted.getRecords().stream().allMatch(l -> l.isMetadataValid()));
+		assertTrue(converted.getRecords().stream().allMatch(l -> l.getLength() <= IntelHexFile.BYTE_COUNT_16));
+		assertEquals(RecordType.END_OF_FILE, converted.getRecords().get(converted.getRecords().size() - 1).getType());
+
+		IntelHexFile reparsed = IntelHexFile.parse(converted.toHexFileString().getBytes());
+		assertEquals(tf.getFormat(), reparsed.getHexFormat());
+		assertArrayEquals(image.readBytes(0x1FF00, 0x20000), reparsed.readBytes(0x1FF00, 0x20000));
+	}
+
+	@Test
+	public void testUpdateAcrossPages() {
+		MemoryImage image = new MemoryImage(6);
+		byte[] bs = new byte[1000];
+		new Random(1234).nextBytes(bs);
+		image.updateBytes(0x12345, bs);
+
+		assertFalse(image.isDefined(0x12344));
+		assertTrue(image.isDefined(0x12345));
+		assertTrue(image.isDefined(0x12345 + 999));
+		assertFalse(image.isDefined(0x12345 + 1000));
+		assertEquals(1000, image.getDefinedByteCount());
+		assertArrayEquals(bs, image.readBytes(0x12345, 1000));
+		assertEquals(bs[500], image.readByte(0x12345 + 500));
+		assertEquals(0, image.readByte(0x99999999L));
+
+		for (int i = 0; i < 100; i++) {
+			image.updateBytes(i * 0x10000L, new byte[] { (byte) i });
+		}
+		for (int i = 1; i < 100; i++) {
+			assertEquals((byte) i, image.readByte(i * 0x10000L));
+		}
+		assertArrayEquals(bs, image.readBytes(0x12345, 1000));
+	}
+}
@@ -0,0 +1,155 @@
+package net.alenzen.intelHex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ParseDiagnosticTest {
+	private static final String DAMAGED = ":020000040001F9\n" //
+			+ ":0000\n" //
+			+ ":0300300002G37A1E\n" //
+			+ ":0300300702337A1E\n" //
+			+ ":020000021000EC\n" //
+			+ ":00000001FF\n";
+
+	@Test
+	public void testCodesAndColumns() throws IOException, InvalidFormatException {
+		ParseDiagnosticCollector collector = new ParseDiagnosticCollector(10);
+		IntelHexFile.parse(new StringReader(DAMAGED), collector);
+
+		List<ParseDiagnostic> ds = collector.getDiagnostics();
+		assertEquals(4, ds.size());
+		assertDiagnostic(ds.get(0), ParseErrorCode.TOO_SHORT, 2, 6);
+		assertDiagnostic(ds.get(1), ParseErrorCode.INVALID_CHARACTER, 3, 12);
+		assertDiagnostic(ds.get(2), ParseErrorCode.UNKNOWN_RECORD_TYPE, 4, 8);
+		assertDiagnostic(ds.get(3), ParseErrorCode.FORMAT_CONFLICT, 5, 8);
+
+		assertEquals(":0000", ds.get(0).getLine());
+		assertEquals(0, ds.get(0).getStart());
+		assertEquals(5, ds.get(0).getEnd());
+		assertEquals(":020000021000EC", ds.get(3).getLine());
+		assertFalse(collector.isTruncated());
+	}
+
+	@Test
+	public void testMissingColon() {
+		ParseDiagnosticCollector collector = new ParseDiagnosticCollector(10);
+		HexRecordDecoder decoder = new HexRecordDecoder(collector);
+		assertTrue(decoder.decode(7, "  0300300002337A1E"));
+		assertFalse(decoder.decode(8, "0000"));
+
+		assertEquals(3, collector.getCount());
+		assertDiagnostic(collector.getDiagnostics().get(0), ParseErrorCode.MISSING_COLON, 7, 1);
+		assertEquals(2, collector.getDiagnostics().get(0).getStart());
+		assertEquals("0300300002337A1E", collector.getDiagnostics().get(0).getLine());
+		assertEquals(":0000", collector.getDiagnostics().get(2).getLine());
+	}
+
+	private static void assertDiagnostic(ParseDiagnostic d, ParseErrorCode code, long lineNumber, int column) {
+		assertEquals(code, d.getCode());
+		assertEquals(lineNumber, d.getLineNumber());
+		assertEquals(column, d.getColumn());
+	}
+
+	@Test
+	public void testMessagesMatchLog() throws IOException, InvalidFormatException {
+		List<String> expected = new ArrayList<>();
+		IntelHexFile.parse(new StringReader(DAMAGED), (i, line, m) -> expected.add(i + line + m));
+
+		List<String> actual = new ArrayList<>();
+		IntelHexFile.parse(new StringReader(DAMAGED),
+				(ParseDiagnosticHandler) d -> actual.add(d.getLineNumber() + d.getLine() + d.getMessage()));
+
+		assertEquals(expected, actual);
+		assertTrue(actual.get(1).contains("For input string: \"G3\""));
+		assertTrue(actual.get(2).endsWith(RecordType.class.getName() + ".7\nSkipping line."));
+	}
+
+	@Test
+	public void testOffsetsWithinBuffer() {
+		byte[] bytes = ("xxxxx" + DAMAGED).getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer content = ByteBuffer.wrap(bytes, 5, bytes.length - 5).slice();
+		ParseDiagnosticCollector collector = new ParseDiagnosticCollector(10);
+		IntelHexFile.parse(content, collector);
+
+		ParseDiagnostic d = collector.getDiagnostics().get(1);
+		assertEquals(DAMAGED.indexOf(":0300300002G37A1E"), d.getStart());
+		assertEquals(d.getStart() + 17, d.getEnd());
+		assertEquals(":0300300002G37A1E", d.getLine());
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	public void testRecordReader(boolean buffer) throws IOException {
+		ParseDiagnosticCollector collector = new ParseDiagnosticCollector(10);
+		int records = 0;
+		try (HexRecordReader reader = buffer
+				? new HexRecordReader(ByteBuffer.wrap(DAMAGED.getBytes(StandardCharsets.US_ASCII)), collector)
+				: new HexRecordReader(new StringReader(DAMAGED), collector)) {
+			while (reader.next() != null) {
+				records++;
+			}
+		}
+
+		// format conflicts are only detected when building a file
+		assertEquals(3, records);
+		List<ParseDiagnostic> ds = collector.getDiagnostics();
+		assertEquals(3, ds.size());
+		assertDiagnostic(ds.get(0), ParseErrorCode.TOO_SHORT, 2, 6);
+		assertDiagnostic(ds.get(1), ParseErrorCode.INVALID_CHARACTER, 3, 12);
+		assertDiagnostic(ds.get(2), ParseErrorCode.UNKNOWN_RECORD_TYPE, 4, 8);
+	}
+
+	@Test
+	public void testCollectorCapacity() throws IOException, InvalidFormatException {
+		ParseDiagnosticCollector collector = new ParseDiagnosticCollector(2);
+		IntelHexFile.parse(new StringReader(DAMAGED + DAMAGED), collector);
+
+		assertEquals(2, collector.getDiagnostics().size());
+		assertEquals(8, collector.getCount());
+		assertEquals(2, collector.getCount(ParseErrorCode.TOO_SHORT));
+		assertEquals(2, collector.getCount(ParseErrorCode.FORMAT_CONFLICT));
+		assertTrue(collector.isTruncated());
+		assertEquals(ParseErrorCode.INVALID_CHARACTER, collector.getDiagnostics().get(1).getCode());
+
+		assertThrows(IllegalArgumentException.class, () -> new ParseDiagnosticCollector(-1));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 20, 1 << 20 })
+	public void testParallelMatchesSequential(int chunkSize) {
+		ByteBuffer content = ByteBuffer.wrap((DAMAGED + DAMAGED).getBytes(StandardCharsets.US_ASCII));
+		ParseDiagnosticCollector expected = new ParseDiagnosticCollector(100);
+		IntelHexFile.parse(content, expected);
+
+		ParseDiagnosticCollector actual = new ParseDiagnosticCollector(100);
+		ParseOptions options = new ParseOptions();
+		options.setDiagnosticHandler(actual);
+		options.setForkJoinPool(ForkJoinPool.commonPool());
+		options.setParallelChunkSize(chunkSize);
+		IntelHexFile.parse(content, options);
+
+		assertEquals(expected.getCount(), actual.getCount());
+		for (int i = 0; i < expected.getDiagnostics().size(); i++) {
+			ParseDiagnostic e = expected.getDiagnostics().get(i);
+			ParseDiagnostic a = actual.getDiagnostics().get(i);
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getLine(), a.getLine());
+			assertEquals(e.getStart(), a.getStart());
+		}
+		assertEquals(IParsingError.VOID, options.getLog());
+	}
+}